@@ -0,0 +1,178 @@
+package graph.array;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Prebuilt index for repeated queries against one matrix of the kind
+ * {@link Search2DMatrix#searchMatrix} walks, rows and columns each sorted ascending. The
+ * staircase walk costs O(rows + cols) per query. This index merges the rows once into a
+ * single sorted array, so contains, rank and countLessThan are all one binary search,
+ * O(log(rows * cols)).
+ *
+ * Batch queries sort the targets first, so consecutive lookups land at increasing positions
+ * and touch the array front to back. Each parallel chunk then gallops forward from the
+ * previous answer instead of searching from scratch.
+ */
+public class Search2DMatrixIndex {
+
+  private static final int PARALLEL_CHUNK = 1 << 12;
+
+  private final int[] sorted;
+
+  public Search2DMatrixIndex(int[][] matrix) {
+    int rows = matrix == null ? 0 : matrix.length;
+    int cols = rows == 0 ? 0 : matrix[0].length;
+    this.sorted = new int[rows * cols];
+    for (int r = 0; r < rows; r++) {
+      if (matrix[r].length != cols) {
+        throw new IllegalArgumentException("row " + r + " has " + matrix[r].length
+            + " columns, expected " + cols);
+      }
+      System.arraycopy(matrix[r], 0, sorted, r * cols, cols);
+    }
+    // rows are already sorted runs, which the library sort merges quickly
+    Arrays.sort(sorted);
+  }
+
+  public boolean contains(int target) {
+    int i = lowerBound(target, 0);
+    return i < sorted.length && sorted[i] == target;
+  }
+
+  /**
+   * Number of values strictly less than target.
+   */
+  public int countLessThan(int target) {
+    return lowerBound(target, 0);
+  }
+
+  /**
+   * Number of values less than or equal to target, i.e. the 1-based rank of its last copy.
+   */
+  public int rank(int target) {
+    return target == Integer.MAX_VALUE ? sorted.length : lowerBound(target + 1, 0);
+  }
+
+  public int size() {
+    return sorted.length;
+  }
+
+  public boolean[] containsAll(int[] targets) {
+    int[] counts = countLessThanAll(targets);
+    boolean[] found = new boolean[targets.length];
+    for (int i = 0; i < targets.length; i++) {
+      found[i] = counts[i] < sorted.length && sorted[counts[i]] == targets[i];
+    }
+    return found;
+  }
+
+  /**
+   * countLessThan for every target, in the order given.
+   */
+  public int[] countLessThanAll(int[] targets) {
+    int n = targets.length;
+    // sort (target, position) pairs packed into longs, target in the high half
+    long[] order = new long[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = ((long) targets[i] << 32) | i;
+    }
+    Arrays.parallelSort(order);
+
+    int[] result = new int[n];
+    int chunks = (n + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+    IntStream stream = IntStream.range(0, chunks);
+    if (chunks > 1) {
+      stream = stream.parallel();
+    }
+    stream.forEach(c -> {
+      int from = c * PARALLEL_CHUNK;
+      int to = Math.min(n, from + PARALLEL_CHUNK);
+      int position = 0;
+      for (int i = from; i < to; i++) {
+        int target = (int) (order[i] >> 32);
+        position = gallop(target, position);
+        result[(int) order[i]] = position;
+      }
+    });
+    return result;
+  }
+
+  // lowerBound starting at from, doubling the step until it passes target
+  private int gallop(int target, int from) {
+    int step = 1;
+    int hi = from;
+    while (hi < sorted.length && sorted[hi] < target) {
+      from = hi + 1;
+      hi += step;
+      step <<= 1;
+    }
+    return lowerBound(target, from, Math.min(hi, sorted.length));
+  }
+
+  private int lowerBound(int target, int from) {
+    return lowerBound(target, from, sorted.length);
+  }
+
+  private int lowerBound(int target, int lo, int hi) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (sorted[mid] < target) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+
+  public static void main(String[] args) {
+    int matrix[][] = new int[][]{
+        {1,   4,  7, 11, 15},
+        {2,   5,  8, 12, 19},
+        {3,   6,  9, 16, 22},
+        {10, 13, 14, 17, 24},
+        {18, 21, 23, 26, 30}
+    };
+    Search2DMatrixIndex index = new Search2DMatrixIndex(matrix);
+    System.out.println(index.contains(10) + " " + index.contains(20));
+    System.out.println("countLessThan(10) = " + index.countLessThan(10) + ", rank(10) = " + index.rank(10));
+    System.out.println(Arrays.toString(index.containsAll(new int[]{30, 0, 5, 20})));
+
+    // staircase walk against the index on a 2000 x 2000 matrix
+    int n = 2000;
+    int[][] big = new int[n][n];
+    for (int r = 0; r < n; r++) {
+      for (int c = 0; c < n; c++) {
+        big[r][c] = 3 * (r + c) + (r % 3);
+      }
+    }
+    Search2DMatrixIndex bigIndex = new Search2DMatrixIndex(big);
+    int[] targets = new Random(1).ints(1_000_000, 0, 6 * n).toArray();
+    for (int round = 0; round < 3; round++) {
+      int walk = 0, single = 0, batch = 0;
+      long start = System.nanoTime();
+      for (int q = 0; q < 20_000; q++) {
+        walk += Search2DMatrix.searchMatrix(big, targets[q]) ? 1 : 0;
+      }
+      double walkNs = (System.nanoTime() - start) / 20_000.0;
+
+      start = System.nanoTime();
+      for (int target : targets) {
+        single += bigIndex.contains(target) ? 1 : 0;
+      }
+      double singleNs = (System.nanoTime() - start) / (double) targets.length;
+
+      start = System.nanoTime();
+      for (boolean found : bigIndex.containsAll(targets)) {
+        batch += found ? 1 : 0;
+      }
+      double batchNs = (System.nanoTime() - start) / (double) targets.length;
+
+      System.out.printf("searchMatrix %.0f ns, contains %.0f ns, containsAll %.0f ns per query "
+          + "(hits %d/20000, %d, %d)%n", walkNs, singleNs, batchNs, walk, single, batch);
+    }
+  }
+}
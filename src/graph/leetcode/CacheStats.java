@@ -0,0 +1,90 @@
+package graph.leetcode;
+
+/**
+ * Immutable point-in-time copy of a cache's counters, cheap enough to take on every
+ * scrape. Rates are derived from the counts, so diff two snapshots for a per-interval view.
+ */
+public final class CacheStats {
+
+  static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, 0, 0);
+
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final long expiredCount;
+  private final long loadSuccessCount;
+  private final long loadFailureCount;
+  private final long totalLoadNanos;
+  private final long tailIdleNanos;
+
+  public CacheStats(long hitCount, long missCount, long evictionCount, long expiredCount,
+      long loadSuccessCount, long loadFailureCount, long totalLoadNanos, long tailIdleNanos) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.expiredCount = expiredCount;
+    this.loadSuccessCount = loadSuccessCount;
+    this.loadFailureCount = loadFailureCount;
+    this.totalLoadNanos = totalLoadNanos;
+    this.tailIdleNanos = tailIdleNanos;
+  }
+
+  public long hitCount() {
+    return hitCount;
+  }
+
+  public long missCount() {
+    return missCount;
+  }
+
+  public double hitRate() {
+    long requests = hitCount + missCount;
+    return requests == 0 ? 1.0 : (double) hitCount / requests;
+  }
+
+  /**
+   * Entries evicted to make room, not counting expired ones.
+   */
+  public long evictionCount() {
+    return evictionCount;
+  }
+
+  public long expiredCount() {
+    return expiredCount;
+  }
+
+  public long loadSuccessCount() {
+    return loadSuccessCount;
+  }
+
+  public long loadFailureCount() {
+    return loadFailureCount;
+  }
+
+  public double averageLoadNanos() {
+    long loads = loadSuccessCount + loadFailureCount;
+    return loads == 0 ? 0.0 : (double) totalLoadNanos / loads;
+  }
+
+  /**
+   * How long the least recently used entry has gone untouched when the snapshot was taken;
+   * a short tail age under load means capacity is too small to keep entries until reuse.
+   */
+  public long tailIdleNanos() {
+    return tailIdleNanos;
+  }
+
+  CacheStats withTailIdleNanos(long tailIdleNanos) {
+    return new CacheStats(hitCount, missCount, evictionCount, expiredCount,
+        loadSuccessCount, loadFailureCount, totalLoadNanos, tailIdleNanos);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "CacheStats{hits=%d, misses=%d, hitRate=%.4f, evictions=%d, expired=%d, loads=%d, "
+            + "loadFailures=%d, avgLoadMs=%.3f, tailIdleMs=%.1f}",
+        hitCount, missCount, hitRate(), evictionCount, expiredCount, loadSuccessCount,
+        loadFailureCount, averageLoadNanos() / 1e6, tailIdleNanos / 1e6);
+  }
+}
@@ -0,0 +1,137 @@
+package graph.leetcode;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock-striped variant of {@link LRUCache}. Keys are spread over independent segments,
+ * each one a plain LRUCache behind its own lock, so threads touching different segments
+ * never contend. Eviction is LRU per segment, not global.
+ */
+public class ConcurrentLRUCache {
+
+  private final LRUCache[] segments;
+  private final ReentrantLock[] locks;
+  private final int mask;
+
+  public ConcurrentLRUCache(int capacity) {
+    this(capacity, Runtime.getRuntime().availableProcessors() * 4);
+  }
+
+  public ConcurrentLRUCache(int capacity, int concurrencyLevel) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    // a power of two, but never more segments than capacity, so none is left empty
+    int n = 1;
+    while (n < concurrencyLevel && (n << 1) <= capacity) {
+      n <<= 1;
+    }
+    this.mask = n - 1;
+    this.segments = new LRUCache[n];
+    this.locks = new ReentrantLock[n];
+    for (int i = 0; i < n; i++) {
+      // spread the remainder so the segment capacities add up to capacity
+      int segmentCapacity = capacity / n + (i < capacity % n ? 1 : 0);
+      segments[i] = new LRUCache(segmentCapacity);
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  public int get(int key) {
+    int s = segmentFor(key);
+    ReentrantLock lock = locks[s];
+    lock.lock();
+    try {
+      return segments[s].get(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void put(int key, int value) {
+    int s = segmentFor(key);
+    ReentrantLock lock = locks[s];
+    lock.lock();
+    try {
+      segments[s].put(key, value);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Spread the key bits so sequential keys do not all land in neighbouring segments.
+   */
+  private int segmentFor(int key) {
+    int h = key * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+
+  // Contention benchmark: a single-lock LRUCache against the striped one.
+  public static void main(String[] args) throws InterruptedException {
+    int capacity = 1 << 16;
+    int opsPerThread = 2_000_000;
+    int[] threadCounts = {1, 4, 16, 64};
+
+    for (int threads : threadCounts) {
+      LRUCache plain = new LRUCache(capacity);
+      Object monitor = new Object();
+      long plainNanos = run(threads, opsPerThread, capacity, (key, write) -> {
+        synchronized (monitor) {
+          if (write) {
+            plain.put(key, key);
+          } else {
+            plain.get(key);
+          }
+        }
+      });
+
+      ConcurrentLRUCache striped = new ConcurrentLRUCache(capacity);
+      long stripedNanos = run(threads, opsPerThread, capacity, (key, write) -> {
+        if (write) {
+          striped.put(key, key);
+        } else {
+          striped.get(key);
+        }
+      });
+
+      long totalOps = (long) threads * opsPerThread;
+      System.out.printf("threads=%2d  LRUCache: %8.1f Mops/s  ConcurrentLRUCache: %8.1f Mops/s%n",
+          threads, totalOps * 1e3 / plainNanos, totalOps * 1e3 / stripedNanos);
+    }
+  }
+
+  private interface Op {
+    void apply(int key, boolean write);
+  }
+
+  // 90% reads, 10% writes over a key space twice the capacity.
+  private static long run(int threads, int ops, int capacity, Op op) throws InterruptedException {
+    CountDownLatch start = new CountDownLatch(1);
+    Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      workers[t] = new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        for (int i = 0; i < ops; i++) {
+          op.apply(random.nextInt(capacity * 2), random.nextInt(10) == 0);
+        }
+      });
+      workers[t].start();
+    }
+    long begin = System.nanoTime();
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return System.nanoTime() - begin;
+  }
+}
@@ -0,0 +1,120 @@
+package graph.leetcode;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Thread-safe {@link StatsCounter} on striped LongAdder counters, so recording from many
+ * threads does not contend on one cache line. Evictions and loads slower than the
+ * threshold are also emitted as JDK Flight Recorder events, which cost next to nothing
+ * while no recording has them enabled.
+ */
+public class ConcurrentStatsCounter implements StatsCounter {
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+  private final LongAdder expiredCount = new LongAdder();
+  private final LongAdder loadSuccessCount = new LongAdder();
+  private final LongAdder loadFailureCount = new LongAdder();
+  private final LongAdder totalLoadNanos = new LongAdder();
+  private final long slowLoadNanos;
+
+  public ConcurrentStatsCounter() {
+    this(100, TimeUnit.MILLISECONDS);
+  }
+
+  public ConcurrentStatsCounter(long slowLoadThreshold, TimeUnit unit) {
+    this.slowLoadNanos = unit.toNanos(slowLoadThreshold);
+  }
+
+  @Override
+  public void recordHits(int count) {
+    hitCount.add(count);
+  }
+
+  @Override
+  public void recordMisses(int count) {
+    missCount.add(count);
+  }
+
+  @Override
+  public void recordEviction(EvictionCause cause, long idleNanos) {
+    if (cause == EvictionCause.EXPIRED) {
+      expiredCount.increment();
+    } else {
+      evictionCount.increment();
+    }
+    EvictionEvent event = new EvictionEvent();
+    if (event.shouldCommit()) {
+      event.cause = cause.name();
+      event.idle = idleNanos;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void recordLoadSuccess(long loadNanos) {
+    loadSuccessCount.increment();
+    totalLoadNanos.add(loadNanos);
+    recordSlowLoad(loadNanos, true);
+  }
+
+  @Override
+  public void recordLoadFailure(long loadNanos) {
+    loadFailureCount.increment();
+    totalLoadNanos.add(loadNanos);
+    recordSlowLoad(loadNanos, false);
+  }
+
+  private void recordSlowLoad(long loadNanos, boolean success) {
+    if (loadNanos < slowLoadNanos) {
+      return;
+    }
+    SlowLoadEvent event = new SlowLoadEvent();
+    if (event.shouldCommit()) {
+      event.loadTime = loadNanos;
+      event.success = success;
+      event.commit();
+    }
+  }
+
+  @Override
+  public CacheStats snapshot() {
+    return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(),
+        expiredCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(),
+        totalLoadNanos.sum(), 0);
+  }
+
+  @Name("graph.leetcode.CacheEviction")
+  @Label("Cache Eviction")
+  @Category("Cache")
+  @Description("An entry left the cache because of size or expiry")
+  static class EvictionEvent extends Event {
+    @Label("Cause")
+    String cause;
+
+    @Label("Idle Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long idle;
+  }
+
+  @Name("graph.leetcode.SlowCacheLoad")
+  @Label("Slow Cache Load")
+  @Category("Cache")
+  @Description("A cache load took longer than the configured threshold")
+  static class SlowLoadEvent extends Event {
+    @Label("Load Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long loadTime;
+
+    @Label("Success")
+    boolean success;
+  }
+}
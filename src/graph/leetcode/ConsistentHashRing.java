@@ -0,0 +1,109 @@
+package graph.leetcode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable consistent-hash ring. Every shard is placed at virtualNodes points on a 64-bit
+ * ring and a key belongs to the first point at or after its hash, so adding or removing one
+ * of N shards only moves about 1/N of the keys. Lookup is a binary search over a sorted
+ * long[]; changes return a new ring so readers never see a half-built one.
+ */
+public class ConsistentHashRing<S> {
+
+  private final Map<String, S> shards;
+  private final int virtualNodes;
+  private final long[] points;
+  private final Object[] owners;
+
+  public ConsistentHashRing(Map<String, S> shards, int virtualNodes) {
+    if (virtualNodes < 1) {
+      throw new IllegalArgumentException("virtualNodes must be positive: " + virtualNodes);
+    }
+    this.shards = Collections.unmodifiableMap(new LinkedHashMap<>(shards));
+    this.virtualNodes = virtualNodes;
+
+    int size = shards.size() * virtualNodes;
+    long[] hashes = new long[size];
+    Integer[] order = new Integer[size];
+    Object[] byIndex = new Object[size];
+    int i = 0;
+    for (Map.Entry<String, S> shard : shards.entrySet()) {
+      for (int v = 0; v < virtualNodes; v++) {
+        hashes[i] = pointHash(shard.getKey(), v);
+        byIndex[i] = shard.getValue();
+        order[i] = i;
+        i++;
+      }
+    }
+    Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+
+    this.points = new long[size];
+    this.owners = new Object[size];
+    for (int j = 0; j < size; j++) {
+      points[j] = hashes[order[j]];
+      owners[j] = byIndex[order[j]];
+    }
+  }
+
+  /**
+   * The shard that owns key, or null if the ring is empty.
+   */
+  @SuppressWarnings("unchecked")
+  public S route(int key) {
+    if (points.length == 0) {
+      return null;
+    }
+    int idx = Arrays.binarySearch(points, mix(key));
+    if (idx < 0) {
+      idx = -idx - 1;
+    }
+    if (idx == points.length) {
+      idx = 0; // wrap around
+    }
+    return (S) owners[idx];
+  }
+
+  public ConsistentHashRing<S> withShard(String name, S shard) {
+    Map<String, S> next = new LinkedHashMap<>(shards);
+    next.put(name, shard);
+    return new ConsistentHashRing<>(next, virtualNodes);
+  }
+
+  public ConsistentHashRing<S> withoutShard(String name) {
+    Map<String, S> next = new LinkedHashMap<>(shards);
+    next.remove(name);
+    return new ConsistentHashRing<>(next, virtualNodes);
+  }
+
+  public Map<String, S> shards() {
+    return shards;
+  }
+
+  // FNV-1a over "name#v", then mixed so nearby names spread over the ring
+  private static long pointHash(String name, int v) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : (name + "#" + v).getBytes(StandardCharsets.UTF_8)) {
+      h ^= b;
+      h *= 0x100000001b3L;
+    }
+    return fmix64(h);
+  }
+
+  private static long mix(int key) {
+    return fmix64(key);
+  }
+
+  // murmur3 finalizer
+  private static long fmix64(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
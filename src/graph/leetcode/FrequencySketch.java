@@ -0,0 +1,76 @@
+package graph.leetcode;
+
+/**
+ * Count-min sketch of 4-bit counters used by {@link TinyLFUCache} to estimate how often a
+ * key has been seen recently. Sixteen counters are packed into each long. After
+ * sampleSize increments every counter is halved, so old popularity fades out.
+ */
+public class FrequencySketch {
+
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int additions;
+
+  public FrequencySketch(int maximumSize) {
+    int size = Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 1;
+    this.table = new long[size];
+    this.tableMask = size - 1;
+    this.sampleSize = 10 * maximumSize;
+  }
+
+  /**
+   * The estimated number of occurrences of key, at most 15.
+   */
+  public int frequency(int key) {
+    int min = 15;
+    for (int i = 0; i < 4; i++) {
+      long h = hash(key, i);
+      int index = (int) h & tableMask;
+      int offset = counterOffset(h, i);
+      min = Math.min(min, (int) ((table[index] >>> offset) & 0xfL));
+    }
+    return min;
+  }
+
+  /**
+   * Count one more occurrence of key, aging the whole sketch when the sample is full.
+   */
+  public void increment(int key) {
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      long h = hash(key, i);
+      int index = (int) h & tableMask;
+      int offset = counterOffset(h, i);
+      if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+        table[index] += 1L << offset;
+        added = true;
+      }
+    }
+    if (added && ++additions == sampleSize) {
+      reset();
+    }
+  }
+
+  // halve every counter
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions /= 2;
+  }
+
+  private static long hash(int key, int i) {
+    long h = (key + SEEDS[i]) * SEEDS[(i + 1) & 3];
+    return h ^ (h >>> 32);
+  }
+
+  // each hash function picks one of the 16 nibbles, in its own group of four
+  private static int counterOffset(long h, int i) {
+    return ((i << 2) + (int) ((h >>> 40) & 3)) << 2;
+  }
+}
@@ -0,0 +1,172 @@
+package graph.leetcode;
+
+/**
+ * Primitive int to int sibling of {@link LRUCache}. Entries live in preallocated parallel
+ * arrays and the index is an open-addressing table of entry slots, so get/put allocate
+ * nothing after construction. Same contract as LRUCache: get returns -1 on a miss.
+ */
+public class IntLRUCache {
+
+  private static final int NIL = -1;
+
+  private final int[] keys;
+  private final int[] values;
+  private final int[] pre;
+  private final int[] post;
+
+  // table[h] holds entry slot + 1, 0 marks an empty bucket
+  private final int[] table;
+  private final int tableMask;
+
+  private final int capacity;
+  private int count;
+  private int head = NIL, tail = NIL;
+
+  public IntLRUCache(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.keys = new int[capacity];
+    this.values = new int[capacity];
+    this.pre = new int[capacity];
+    this.post = new int[capacity];
+
+    int size = Integer.highestOneBit(capacity * 2 - 1) << 1; // load factor <= 0.5
+    this.table = new int[size];
+    this.tableMask = size - 1;
+  }
+
+  public int get(int key) {
+    int slot = find(key);
+    if (slot == NIL) {
+      return -1;
+    }
+    moveToHead(slot);
+    return values[slot];
+  }
+
+  public void put(int key, int value) {
+    int slot = find(key);
+    if (slot != NIL) {
+      values[slot] = value;
+      moveToHead(slot);
+      return;
+    }
+
+    if (count < capacity) {
+      slot = count++;
+    } else {
+      // reuse the tail slot for the new entry
+      slot = tail;
+      removeNode(slot);
+      unindex(keys[slot]);
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    index(key, slot);
+    addNode(slot);
+  }
+
+  public int size() {
+    return count;
+  }
+
+  private static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private int find(int key) {
+    for (int h = hash(key) & tableMask; ; h = (h + 1) & tableMask) {
+      int e = table[h];
+      if (e == 0) {
+        return NIL;
+      }
+      if (keys[e - 1] == key) {
+        return e - 1;
+      }
+    }
+  }
+
+  private void index(int key, int slot) {
+    int h = hash(key) & tableMask;
+    while (table[h] != 0) {
+      h = (h + 1) & tableMask;
+    }
+    table[h] = slot + 1;
+  }
+
+  /**
+   * Linear-probing delete with backward shift, so no tombstones pile up.
+   */
+  private void unindex(int key) {
+    int h = hash(key) & tableMask;
+    while (keys[table[h] - 1] != key) {
+      h = (h + 1) & tableMask;
+    }
+    int hole = h;
+    for (int next = (hole + 1) & tableMask; table[next] != 0; next = (next + 1) & tableMask) {
+      int home = hash(keys[table[next] - 1]) & tableMask;
+      // move the entry back if its home bucket is not within (hole, next]
+      if (((next - home) & tableMask) >= ((next - hole) & tableMask)) {
+        table[hole] = table[next];
+        hole = next;
+      }
+    }
+    table[hole] = 0;
+  }
+
+  /**
+   * Always add the new slot right after head;
+   */
+  private void addNode(int slot) {
+    pre[slot] = NIL;
+    post[slot] = head;
+    if (head != NIL) {
+      pre[head] = slot;
+    } else {
+      tail = slot;
+    }
+    head = slot;
+  }
+
+  /**
+   * Remove an existing slot from the linked list.
+   */
+  private void removeNode(int slot) {
+    int p = pre[slot];
+    int n = post[slot];
+    if (p != NIL) {
+      post[p] = n;
+    } else {
+      head = n;
+    }
+    if (n != NIL) {
+      pre[n] = p;
+    } else {
+      tail = p;
+    }
+  }
+
+  private void moveToHead(int slot) {
+    if (slot != head) {
+      removeNode(slot);
+      addNode(slot);
+    }
+  }
+
+
+  public static void main(String[] args) {
+    IntLRUCache cache = new IntLRUCache(2);
+    cache.put(1, 1);
+    cache.put(2, 2);
+    System.out.println(cache.get(1));  // 1
+    cache.put(3, 3);                   // evicts key 2
+    System.out.println(cache.get(2));  // -1
+    cache.put(4, 4);                   // evicts key 1
+    System.out.println(cache.get(1));  // -1
+    System.out.println(cache.get(3));  // 3
+    System.out.println(cache.get(4));  // 4
+  }
+}
@@ -1,17 +1,33 @@
 package graph.leetcode;
 
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
 //https://leetcode.com/problems/lru-cache/
 
 public class LRUCache {
 
-  class DLinkedNode {
+  static class DLinkedNode {
     int key;
     int value;
     DLinkedNode pre;
     DLinkedNode post;
+
+    // expiry, only set for entries put with a ttl
+    long expireAt;
+    DLinkedNode timerPre;
+    DLinkedNode timerPost;
+
+    // last read or write, only tracked while stats are recorded
+    long accessTime;
   }
 
 
@@ -19,11 +35,27 @@ public class LRUCache {
       cache = new Hashtable<>();
   private int count;
   private int capacity;
+
+  // about 146 years, keeps now + ttl from wrapping around
+  private static final long MAX_TTL_MILLIS = Long.MAX_VALUE / 2 / 1_000_000;
   private DLinkedNode head, tail;
+  private TimingWheel timerWheel;
+  private final StatsCounter stats;
+  private final boolean recordingStats;
+
+  private static final int SNAPSHOT_MAGIC = 0x4C525531; // "LRU1"
+  private static final int SNAPSHOT_HEADER_BYTES = 8;
+  private static final int SNAPSHOT_ENTRY_BYTES = 16;
 
   public LRUCache(int capacity) {
+    this(capacity, StatsCounter.disabled());
+  }
+
+  public LRUCache(int capacity, StatsCounter stats) {
     this.count = 0;
     this.capacity = capacity;
+    this.stats = stats;
+    this.recordingStats = stats != StatsCounter.disabled();
 
     head = new DLinkedNode();
     head.pre = null;
@@ -36,11 +68,29 @@ public class LRUCache {
   }
 
   public int get(int key) {
+    int value = getQuietly(key);
+    if(value == -1){
+      stats.recordMisses(1);
+    }else{
+      stats.recordHits(1);
+    }
+    return value;
+  }
+
+  /**
+   * get without recording a hit or miss, for callers that already counted the request.
+   */
+  int getQuietly(int key) {
+    expireEntries();
 
     DLinkedNode node = cache.get(key);
     if(node == null){
       return -1; // should raise exception here.
     }
+    if(isExpired(node)){
+      this.expire(node);
+      return -1;
+    }
 
     // move the accessed node to the head;
     this.moveToHead(node);
@@ -50,6 +100,16 @@ public class LRUCache {
 
 
   public void put(int key, int value) {
+    put(key, value, 0);
+  }
+
+  /**
+   * Put an entry that expires ttlMillis from now; a ttl of 0 or less never expires.
+   * Expired entries are dropped by the timing wheel as later calls advance it, and
+   * get reports them as misses even before the wheel reaches them.
+   */
+  public void put(int key, int value, long ttlMillis) {
+    expireEntries();
     DLinkedNode node = cache.get(key);
 
     if(node == null){
@@ -60,6 +120,7 @@ public class LRUCache {
 
       this.cache.put(key, newNode);
       this.addNode(newNode);
+      this.setExpiry(newNode, ttlMillis);
 
       ++count;
 
@@ -68,18 +129,208 @@ public class LRUCache {
         DLinkedNode tail = this.popTail();
         this.cache.remove(tail.key);
         --count;
+        if(recordingStats){
+          stats.recordEviction(StatsCounter.EvictionCause.SIZE, System.nanoTime() - tail.accessTime);
+        }
       }
     }else{
       // update the value.
       node.value = value;
       this.moveToHead(node);
+      this.setExpiry(node, ttlMillis);
+    }
+  }
+
+  /**
+   * Remove key if present, returning whether it was there.
+   */
+  public boolean remove(int key) {
+    DLinkedNode node = cache.remove(key);
+    if(node == null){
+      return false;
+    }
+    if(node.timerPost != null){
+      timerWheel.deschedule(node);
     }
+    this.removeNode(node);
+    --count;
+    return true;
+  }
+
+  /**
+   * The keys in recency order, most recently used first.
+   */
+  int[] keys() {
+    int[] keys = new int[count];
+    int i = 0;
+    for(DLinkedNode node = head.post; node != tail; node = node.post){
+      keys[i++] = node.key;
+    }
+    return keys;
+  }
+
+  /**
+   * Whether key holds a live entry, without touching recency or stats.
+   */
+  boolean containsKey(int key) {
+    DLinkedNode node = cache.get(key);
+    return node != null && !isExpired(node);
+  }
+
+  /**
+   * The System.nanoTime at which key expires, or 0 if it is absent or has no ttl.
+   */
+  long expireAt(int key) {
+    DLinkedNode node = cache.get(key);
+    return node == null ? 0 : node.expireAt;
+  }
+
+  private void setExpiry(DLinkedNode node, long ttlMillis) {
+    if(node.timerPost != null){
+      timerWheel.deschedule(node);
+    }
+    if(ttlMillis <= 0){
+      node.expireAt = 0;
+      return;
+    }
+    long now = System.nanoTime();
+    if(timerWheel == null){
+      timerWheel = new TimingWheel(now);
+    }
+    // cap the ttl so expireAt cannot overflow
+    node.expireAt = now + TimeUnit.MILLISECONDS.toNanos(Math.min(ttlMillis, MAX_TTL_MILLIS));
+    timerWheel.schedule(node);
+  }
+
+  private static boolean isExpired(DLinkedNode node) {
+    return node.expireAt != 0 && node.expireAt - System.nanoTime() <= 0;
+  }
+
+  /**
+   * Advance the timing wheel, the amortized expiry work done on each access.
+   */
+  private void expireEntries() {
+    if(timerWheel != null && timerWheel.size() > 0){
+      timerWheel.advance(System.nanoTime(), this::expire);
+    }
+  }
+
+  private void expire(DLinkedNode node) {
+    if(node.timerPost != null){
+      timerWheel.deschedule(node);
+    }
+    this.removeNode(node);
+    this.cache.remove(node.key);
+    --count;
+    if(recordingStats){
+      stats.recordEviction(StatsCounter.EvictionCause.EXPIRED, System.nanoTime() - node.accessTime);
+    }
+  }
+
+  /**
+   * Snapshot of the recorded statistics plus the idle time of the current tail entry.
+   */
+  public CacheStats stats() {
+    CacheStats snapshot = stats.snapshot();
+    if(recordingStats && tail.pre != head){
+      snapshot = snapshot.withTailIdleNanos(System.nanoTime() - tail.pre.accessTime);
+    }
+    return snapshot;
+  }
+
+  /**
+   * Write the live entries to file in recency order, most recent first, through a
+   * MappedByteBuffer. Layout: magic, entry count, then key, value and remaining ttl
+   * in millis (0 for none) per entry. The file is written beside the target and moved
+   * into place, so a crash never leaves a torn snapshot behind.
+   */
+  public void snapshot(Path file) throws IOException {
+    expireEntries();
+    long now = System.nanoTime();
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+          SNAPSHOT_HEADER_BYTES + (long) count * SNAPSHOT_ENTRY_BYTES);
+      buffer.putInt(SNAPSHOT_MAGIC);
+      buffer.putInt(0); // patched below, expired entries are skipped
+      int written = 0;
+      for(DLinkedNode node = head.post; node != tail; node = node.post){
+        long ttlMillis = 0;
+        if(node.expireAt != 0){
+          ttlMillis = TimeUnit.NANOSECONDS.toMillis(node.expireAt - now);
+          if(ttlMillis <= 0){
+            continue;
+          }
+        }
+        buffer.putInt(node.key);
+        buffer.putInt(node.value);
+        buffer.putLong(ttlMillis);
+        written++;
+      }
+      buffer.putInt(4, written);
+      buffer.force();
+    }
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Stream a snapshot back into a new cache, hottest entries first. If the snapshot holds
+   * more entries than capacity, the coldest ones are left out.
+   */
+  public static LRUCache restore(Path file, int capacity) throws IOException {
+    return restore(file, capacity, StatsCounter.disabled());
+  }
+
+  public static LRUCache restore(Path file, int capacity, StatsCounter stats) throws IOException {
+    LRUCache lruCache = new LRUCache(capacity, stats);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if(buffer.remaining() < SNAPSHOT_HEADER_BYTES || buffer.getInt() != SNAPSHOT_MAGIC){
+        throw new IOException("not an LRUCache snapshot: " + file);
+      }
+      int entries = buffer.getInt();
+      if(buffer.remaining() < (long) entries * SNAPSHOT_ENTRY_BYTES){
+        throw new IOException("truncated LRUCache snapshot: " + file);
+      }
+      // size the index up front so restore never rehashes
+      lruCache.cache = new Hashtable<>(Math.min(entries, capacity) * 4 / 3 + 1);
+      for(int i = 0; i < entries && lruCache.count < capacity; i++){
+        DLinkedNode node = new DLinkedNode();
+        node.key = buffer.getInt();
+        node.value = buffer.getInt();
+        long ttlMillis = buffer.getLong();
+
+        lruCache.cache.put(node.key, node);
+        lruCache.addLast(node);
+        lruCache.setExpiry(node, ttlMillis);
+        ++lruCache.count;
+      }
+    }
+    return lruCache;
+  }
+
+  /**
+   * Append after the current tail, used by restore to keep the snapshot order.
+   */
+  private void addLast(DLinkedNode node) {
+    if(recordingStats){
+      node.accessTime = System.nanoTime();
+    }
+    node.post = tail;
+    node.pre = tail.pre;
+
+    tail.pre.post = node;
+    tail.pre = node;
   }
 
   /**
    * Always add the new node right after head;
    */
   private void addNode(DLinkedNode node) {
+    if(recordingStats){
+      node.accessTime = System.nanoTime();
+    }
 
     node.pre = head;
     node.post = head.post;
@@ -111,6 +362,9 @@ public class LRUCache {
   private DLinkedNode popTail(){
     DLinkedNode res = tail.pre;
     this.removeNode(res);
+    if(res.timerPost != null){
+      timerWheel.deschedule(res);
+    }
     return res;
   }
 
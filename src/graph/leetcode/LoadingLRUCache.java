@@ -0,0 +1,308 @@
+package graph.leetcode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Loader-backed, thread-safe front for {@link LRUCache}. A miss runs at most one load per
+ * key while other callers for that key wait on it, getAll sends all of its misses to one
+ * bulk-loader call, and an entry read within refreshAhead of its ttl is reloaded in the
+ * background while callers keep getting the current value.
+ *
+ * -1 marks a miss in LRUCache, so a loader returning -1 is never served from the cache:
+ * every get for that key runs the loader again.
+ */
+public class LoadingLRUCache {
+
+  public interface BulkLoader {
+    /**
+     * Load values for keys, returned in the same order.
+     */
+    int[] loadAll(int[] keys);
+  }
+
+  private final LRUCache cache;
+  private final StatsCounter stats;
+  private final long ttlMillis;
+  private final long refreshAheadNanos;
+  private final Executor executor;
+  private final ConcurrentHashMap<Integer, CompletableFuture<Integer>> inFlight =
+      new ConcurrentHashMap<>();
+
+  public LoadingLRUCache(int capacity) {
+    this(capacity, 0, 0, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * @param ttlMillis expiry of loaded entries, 0 to never expire
+   * @param refreshAheadMillis how long before expiry a read triggers a background reload,
+   *                           0 to disable refresh-ahead
+   */
+  public LoadingLRUCache(int capacity, long ttlMillis, long refreshAheadMillis, Executor executor) {
+    this(capacity, ttlMillis, refreshAheadMillis, executor, StatsCounter.disabled());
+  }
+
+  public LoadingLRUCache(int capacity, long ttlMillis, long refreshAheadMillis, Executor executor,
+      StatsCounter stats) {
+    this.cache = new LRUCache(capacity, stats);
+    this.stats = stats;
+    this.ttlMillis = ttlMillis;
+    this.refreshAheadNanos = TimeUnit.MILLISECONDS.toNanos(refreshAheadMillis);
+    this.executor = executor;
+  }
+
+  public int get(int key, IntUnaryOperator loader) {
+    int value;
+    long expireAt;
+    synchronized (cache) {
+      value = cache.get(key);
+      expireAt = cache.expireAt(key);
+    }
+    if (value != -1) {
+      if (shouldRefresh(expireAt)) {
+        refresh(new int[]{key}, keys -> new int[]{loader.applyAsInt(keys[0])});
+      }
+      return value;
+    }
+
+    CompletableFuture<Integer> mine = new CompletableFuture<>();
+    CompletableFuture<Integer> existing = inFlight.putIfAbsent(key, mine);
+    if (existing != null) {
+      return join(existing);
+    }
+    try {
+      // the previous loader may have stored the value between our miss and claiming the key
+      synchronized (cache) {
+        value = cache.getQuietly(key);
+      }
+      if (value == -1) {
+        value = timedLoad(key, loader);
+        store(key, value);
+      }
+      mine.complete(value);
+      return value;
+    } catch (Throwable e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  /**
+   * Values for keys in the same order; every miss not already being loaded by another
+   * caller goes to a single loader.loadAll call.
+   */
+  public int[] getAll(int[] keys, BulkLoader loader) {
+    int[] result = new int[keys.length];
+    List<Integer> refreshKeys = new ArrayList<>();
+    synchronized (cache) {
+      for (int i = 0; i < keys.length; i++) {
+        result[i] = cache.get(keys[i]);
+        if (result[i] != -1 && shouldRefresh(cache.expireAt(keys[i]))) {
+          refreshKeys.add(keys[i]);
+        }
+      }
+    }
+    if (!refreshKeys.isEmpty()) {
+      refresh(refreshKeys.stream().mapToInt(Integer::intValue).toArray(), loader);
+    }
+
+    Map<Integer, CompletableFuture<Integer>> waiting = new HashMap<>();
+    LinkedHashMap<Integer, CompletableFuture<Integer>> mine = new LinkedHashMap<>();
+    for (int i = 0; i < keys.length; i++) {
+      int key = keys[i];
+      if (result[i] != -1 || waiting.containsKey(key) || mine.containsKey(key)) {
+        continue;
+      }
+      CompletableFuture<Integer> future = new CompletableFuture<>();
+      CompletableFuture<Integer> existing = inFlight.putIfAbsent(key, future);
+      if (existing != null) {
+        waiting.put(key, existing);
+      } else {
+        mine.put(key, future);
+      }
+    }
+
+    if (!mine.isEmpty()) {
+      load(mine, loader);
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (result[i] == -1) {
+        CompletableFuture<Integer> future = mine.get(keys[i]);
+        result[i] = join(future != null ? future : waiting.get(keys[i]));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reload keys on the executor unless they are already being loaded.
+   */
+  private void refresh(int[] keys, BulkLoader loader) {
+    LinkedHashMap<Integer, CompletableFuture<Integer>> mine = new LinkedHashMap<>();
+    for (int key : keys) {
+      CompletableFuture<Integer> future = new CompletableFuture<>();
+      if (inFlight.putIfAbsent(key, future) == null) {
+        mine.put(key, future);
+      }
+    }
+    if (!mine.isEmpty()) {
+      try {
+        executor.execute(() -> {
+          try {
+            load(mine, loader);
+          } catch (RuntimeException e) {
+            // the stale value stays until it expires, the next miss loads it again
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        // release the claims, or every later miss on these keys would wait forever
+        for (Map.Entry<Integer, CompletableFuture<Integer>> entry : mine.entrySet()) {
+          entry.getValue().completeExceptionally(e);
+          inFlight.remove(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+  }
+
+  // Run one bulk load for the claimed keys and complete their futures.
+  private void load(LinkedHashMap<Integer, CompletableFuture<Integer>> claimed, BulkLoader loader) {
+    int[] keys = claimed.keySet().stream().mapToInt(Integer::intValue).toArray();
+    try {
+      long start = System.nanoTime();
+      int[] values;
+      try {
+        values = loader.loadAll(keys);
+        if (values.length != keys.length) {
+          throw new IllegalStateException(
+              "bulk loader returned " + values.length + " values for " + keys.length + " keys");
+        }
+      } catch (Throwable e) {
+        stats.recordLoadFailure(System.nanoTime() - start);
+        throw e;
+      }
+      stats.recordLoadSuccess(System.nanoTime() - start);
+      synchronized (cache) {
+        for (int i = 0; i < keys.length; i++) {
+          cache.put(keys[i], values[i], ttlMillis);
+        }
+      }
+      for (int i = 0; i < keys.length; i++) {
+        claimed.get(keys[i]).complete(values[i]);
+      }
+    } catch (Throwable e) {
+      for (CompletableFuture<Integer> future : claimed.values()) {
+        future.completeExceptionally(e);
+      }
+      throw e;
+    } finally {
+      for (Map.Entry<Integer, CompletableFuture<Integer>> entry : claimed.entrySet()) {
+        inFlight.remove(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private int timedLoad(int key, IntUnaryOperator loader) {
+    long start = System.nanoTime();
+    try {
+      int value = loader.applyAsInt(key);
+      stats.recordLoadSuccess(System.nanoTime() - start);
+      return value;
+    } catch (Throwable e) {
+      stats.recordLoadFailure(System.nanoTime() - start);
+      throw e;
+    }
+  }
+
+  public CacheStats stats() {
+    synchronized (cache) {
+      return cache.stats();
+    }
+  }
+
+  private void store(int key, int value) {
+    synchronized (cache) {
+      cache.put(key, value, ttlMillis);
+    }
+  }
+
+  private boolean shouldRefresh(long expireAt) {
+    return refreshAheadNanos > 0 && expireAt != 0 && expireAt - System.nanoTime() <= refreshAheadNanos;
+  }
+
+  private static int join(CompletableFuture<Integer> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+
+  public static void main(String[] args) throws InterruptedException {
+    LoadingLRUCache cache = new LoadingLRUCache(100, 1500, 1000, ForkJoinPool.commonPool(),
+        new ConcurrentStatsCounter(100, TimeUnit.MILLISECONDS));
+    AtomicInteger loads = new AtomicInteger();
+    IntUnaryOperator slowLoader = key -> {
+      loads.incrementAndGet();
+      sleep(200);
+      return key * 10;
+    };
+
+    // 16 threads miss on the same key, one load runs
+    CountDownLatch done = new CountDownLatch(16);
+    for (int t = 0; t < 16; t++) {
+      new Thread(() -> {
+        cache.get(42, slowLoader);
+        done.countDown();
+      }).start();
+    }
+    done.await();
+    System.out.println("loads for 16 concurrent misses: " + loads.get());
+
+    // misses 1, 2, 3 go to one bulk call, 42 is a hit
+    AtomicInteger bulkCalls = new AtomicInteger();
+    int[] values = cache.getAll(new int[]{1, 42, 2, 3}, keys -> {
+      bulkCalls.incrementAndGet();
+      return Arrays.stream(keys).map(k -> k * 10).toArray();
+    });
+    System.out.println(Arrays.toString(values) + " bulk calls: " + bulkCalls.get());
+
+    // inside the refresh-ahead window the old value is served and a reload starts
+    sleep(700);
+    loads.set(0);
+    System.out.println("value " + cache.get(42, slowLoader) + ", refreshing in background");
+    sleep(400);
+    System.out.println("background loads: " + loads.get());
+    System.out.println(cache.stats());
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
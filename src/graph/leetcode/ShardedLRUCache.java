@@ -0,0 +1,179 @@
+package graph.leetcode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One logical cache spread over several {@link LRUCache} shards by a
+ * {@link ConsistentHashRing}. In-process shards stand in for remote cache nodes: each is
+ * used under its own monitor, and adding or removing a shard rebalances only the keys
+ * whose owner changed. A key in the middle of a move may read as a miss once. get and put
+ * confirm under the shard's lock that the current ring still routes the key there, so a
+ * caller that routed with the old ring retries instead of stranding a write on the old
+ * shard. A write that reaches the new owner during the move is kept; the moved copy never
+ * overwrites it.
+ */
+public class ShardedLRUCache {
+
+  private final int virtualNodes;
+  private volatile ConsistentHashRing<LRUCache> ring;
+
+  public ShardedLRUCache(int virtualNodes) {
+    this.virtualNodes = virtualNodes;
+    this.ring = new ConsistentHashRing<>(new LinkedHashMap<>(), virtualNodes);
+  }
+
+  public int get(int key) {
+    while (true) {
+      LRUCache shard = ring.route(key);
+      if (shard == null) {
+        return -1;
+      }
+      synchronized (shard) {
+        if (ring.route(key) == shard) {
+          return shard.get(key);
+        }
+      }
+    }
+  }
+
+  public void put(int key, int value) {
+    while (true) {
+      LRUCache shard = ring.route(key);
+      if (shard == null) {
+        throw new IllegalStateException("no shards");
+      }
+      synchronized (shard) {
+        // the ring is swapped before rebalance locks the old owner, so once the owner is
+        // confirmed under its lock, any later move of the key sees this write
+        if (ring.route(key) == shard) {
+          shard.put(key, value);
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Add a shard and move to it the entries it now owns.
+   *
+   * @return the number of entries moved
+   */
+  public synchronized int addShard(String name, LRUCache shard) {
+    if (ring.shards().containsKey(name)) {
+      throw new IllegalArgumentException("shard already present: " + name);
+    }
+    ConsistentHashRing<LRUCache> previous = ring;
+    ring = previous.withShard(name, shard);
+    int moved = 0;
+    for (LRUCache source : previous.shards().values()) {
+      moved += rebalance(source);
+    }
+    return moved;
+  }
+
+  /**
+   * Remove a shard, handing each of its entries to the shard that now owns it.
+   *
+   * @return the number of entries moved
+   */
+  public synchronized int removeShard(String name) {
+    LRUCache removed = ring.shards().get(name);
+    if (removed == null) {
+      throw new IllegalArgumentException("unknown shard: " + name);
+    }
+    ring = ring.withoutShard(name);
+    return ring.shards().isEmpty() ? 0 : rebalance(removed);
+  }
+
+  public Map<String, LRUCache> shards() {
+    return ring.shards();
+  }
+
+  // Move every entry of source that the current ring routes elsewhere.
+  private int rebalance(LRUCache source) {
+    int[] keys;
+    synchronized (source) {
+      keys = source.keys();
+    }
+    int moved = 0;
+    // coldest first, so the hottest entries end up at the head of their new shard
+    for (int i = keys.length - 1; i >= 0; i--) {
+      int key = keys[i];
+      LRUCache target = ring.route(key);
+      if (target == source) {
+        continue;
+      }
+      int value;
+      long ttlMillis = 0;
+      synchronized (source) {
+        long expireAt = source.expireAt(key);
+        value = source.getQuietly(key);
+        source.remove(key);
+        if (expireAt != 0) {
+          long remaining = expireAt - System.nanoTime();
+          // a ttl of 0 would mean "never expires", so drop what has run out
+          // and round the rest up to whole milliseconds
+          ttlMillis = remaining <= 0 ? -1 : (remaining + 999_999) / 1_000_000;
+        }
+      }
+      if (value == -1 || ttlMillis < 0) {
+        continue; // expired or already gone
+      }
+      synchronized (target) {
+        // the ring already routes clients here, so a value they wrote meanwhile is newer
+        if (target.containsKey(key)) {
+          continue;
+        }
+        target.put(key, value, ttlMillis);
+      }
+      moved++;
+    }
+    return moved;
+  }
+
+
+  // Key movement on resize and ring lookup cost.
+  public static void main(String[] args) {
+    int keys = 100_000;
+    ShardedLRUCache cache = new ShardedLRUCache(160);
+    for (int s = 0; s < 4; s++) {
+      cache.addShard("shard-" + s, new LRUCache(keys));
+    }
+    for (int key = 0; key < keys; key++) {
+      cache.put(key, key);
+    }
+
+    int moved = cache.addShard("shard-4", new LRUCache(keys));
+    System.out.printf("added 5th shard: moved %d of %d keys (%.1f%%, ideal 20%%)%n",
+        moved, keys, 100.0 * moved / keys);
+    int hits = 0;
+    for (int key = 0; key < keys; key++) {
+      if (cache.get(key) == key) {
+        hits++;
+      }
+    }
+    System.out.println("keys still readable after rebalance: " + hits);
+
+    Map<String, Integer> sizes = new LinkedHashMap<>();
+    for (Map.Entry<String, LRUCache> shard : cache.shards().entrySet()) {
+      sizes.put(shard.getKey(), shard.getValue().keys().length);
+    }
+    System.out.println("entries per shard: " + sizes);
+
+    ConsistentHashRing<LRUCache> ring = cache.ring;
+    int lookups = 50_000_000;
+    long sink = 0;
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < lookups; i++) {
+        sink += ring.route(i).hashCode();
+      }
+      long elapsed = System.nanoTime() - start;
+      System.out.printf("ring lookup: %.1f ns/op%n", (double) elapsed / lookups);
+    }
+    if (sink == 42) {
+      System.out.println();
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package graph.leetcode;
+
+/**
+ * Receives the events of a cache for statistics. Use {@link #disabled()} to opt out at
+ * the cost of a no-op call, or {@link ConcurrentStatsCounter} to record them.
+ */
+public interface StatsCounter {
+
+  enum EvictionCause { SIZE, EXPIRED }
+
+  void recordHits(int count);
+
+  void recordMisses(int count);
+
+  /**
+   * @param idleNanos time since the evicted entry was last read or written
+   */
+  void recordEviction(EvictionCause cause, long idleNanos);
+
+  void recordLoadSuccess(long loadNanos);
+
+  void recordLoadFailure(long loadNanos);
+
+  CacheStats snapshot();
+
+  static StatsCounter disabled() {
+    return DisabledStatsCounter.INSTANCE;
+  }
+}
+
+enum DisabledStatsCounter implements StatsCounter {
+  INSTANCE;
+
+  @Override
+  public void recordHits(int count) {
+  }
+
+  @Override
+  public void recordMisses(int count) {
+  }
+
+  @Override
+  public void recordEviction(EvictionCause cause, long idleNanos) {
+  }
+
+  @Override
+  public void recordLoadSuccess(long loadNanos) {
+  }
+
+  @Override
+  public void recordLoadFailure(long loadNanos) {
+  }
+
+  @Override
+  public CacheStats snapshot() {
+    return CacheStats.EMPTY;
+  }
+}
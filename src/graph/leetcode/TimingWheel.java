@@ -0,0 +1,133 @@
+package graph.leetcode;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel that schedules {@link LRUCache} entries by their expireAt time.
+ * Each level covers a coarser span (about 1s, 1m, 1h, 1.6d, 6.5d per bucket), so scheduling
+ * is O(1) and advancing only visits the buckets whose time has passed; entries in a coarse
+ * bucket that are not yet due cascade down into a finer level.
+ */
+class TimingWheel {
+
+  static final int[] BUCKETS = {64, 64, 32, 4, 1};
+  static final long[] SPANS = {
+      1L << 30, // 1.07s
+      1L << 36, // 1.14m
+      1L << 42, // 1.22h
+      1L << 47, // 1.63d
+      1L << 49, // 6.5d
+      1L << 49, // 6.5d
+  };
+  static final long[] SHIFT = {
+      Long.numberOfTrailingZeros(SPANS[0]),
+      Long.numberOfTrailingZeros(SPANS[1]),
+      Long.numberOfTrailingZeros(SPANS[2]),
+      Long.numberOfTrailingZeros(SPANS[3]),
+      Long.numberOfTrailingZeros(SPANS[4]),
+  };
+
+  private final LRUCache.DLinkedNode[][] wheel;
+  private long nanos;
+  private int size;
+
+  TimingWheel(long now) {
+    this.nanos = now;
+    this.wheel = new LRUCache.DLinkedNode[BUCKETS.length][];
+    for (int i = 0; i < wheel.length; i++) {
+      wheel[i] = new LRUCache.DLinkedNode[BUCKETS[i]];
+      for (int j = 0; j < wheel[i].length; j++) {
+        LRUCache.DLinkedNode sentinel = new LRUCache.DLinkedNode();
+        sentinel.timerPre = sentinel;
+        sentinel.timerPost = sentinel;
+        wheel[i][j] = sentinel;
+      }
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Link the node into the bucket that covers its expireAt.
+   */
+  void schedule(LRUCache.DLinkedNode node) {
+    LRUCache.DLinkedNode sentinel = findBucket(node.expireAt);
+    node.timerPre = sentinel.timerPre;
+    node.timerPost = sentinel;
+    sentinel.timerPre.timerPost = node;
+    sentinel.timerPre = node;
+    size++;
+  }
+
+  void deschedule(LRUCache.DLinkedNode node) {
+    if (node.timerPost != null) {
+      node.timerPre.timerPost = node.timerPost;
+      node.timerPost.timerPre = node.timerPre;
+      node.timerPre = null;
+      node.timerPost = null;
+      size--;
+    }
+  }
+
+  /**
+   * Move the wheel to now, handing every entry that has expired to the callback.
+   */
+  void advance(long now, Consumer<LRUCache.DLinkedNode> expired) {
+    long previous = nanos;
+    nanos = now;
+    for (int i = 0; i < SHIFT.length; i++) {
+      long previousTicks = previous >>> SHIFT[i];
+      long currentTicks = now >>> SHIFT[i];
+      if (currentTicks - previousTicks <= 0L) {
+        break;
+      }
+      expire(i, previousTicks, currentTicks - previousTicks, expired);
+    }
+  }
+
+  private void expire(int level, long previousTicks, long delta,
+      Consumer<LRUCache.DLinkedNode> expired) {
+    LRUCache.DLinkedNode[] buckets = wheel[level];
+    int mask = buckets.length - 1;
+    int steps = (int) Math.min(1 + delta, buckets.length);
+    int start = (int) (previousTicks & mask);
+    int end = start + steps;
+
+    for (int i = start; i < end; i++) {
+      LRUCache.DLinkedNode sentinel = buckets[i & mask];
+      LRUCache.DLinkedNode node = sentinel.timerPost;
+      sentinel.timerPre = sentinel;
+      sentinel.timerPost = sentinel;
+
+      while (node != sentinel) {
+        LRUCache.DLinkedNode next = node.timerPost;
+        node.timerPre = null;
+        node.timerPost = null;
+        size--;
+
+        if (node.expireAt - nanos > 0) {
+          // not due yet, cascade into a finer bucket
+          schedule(node);
+        } else {
+          expired.accept(node);
+        }
+        node = next;
+      }
+    }
+  }
+
+  private LRUCache.DLinkedNode findBucket(long time) {
+    long duration = time - nanos;
+    int length = wheel.length - 1;
+    for (int i = 0; i < length; i++) {
+      if (duration < SPANS[i + 1]) {
+        long ticks = time >>> SHIFT[i];
+        int index = (int) (ticks & (wheel[i].length - 1));
+        return wheel[i][index];
+      }
+    }
+    return wheel[length][0];
+  }
+}
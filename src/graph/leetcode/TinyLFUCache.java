@@ -0,0 +1,210 @@
+package graph.leetcode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * W-TinyLFU flavour of {@link LRUCache}. New keys enter a small window LRU; when it overflows
+ * the window tail competes with the main region's tail victim and only the one that
+ * {@link FrequencySketch} estimates as more popular is kept. The main region is a
+ * segmented LRU: probation for keys seen once, protected for keys hit again.
+ */
+public class TinyLFUCache {
+
+  private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+  class DLinkedNode {
+    int key;
+    int value;
+    int queue;
+    DLinkedNode pre;
+    DLinkedNode post;
+  }
+
+  private final HashMap<Integer, DLinkedNode> cache = new HashMap<>();
+  private final FrequencySketch sketch;
+  private final DLinkedNode[] heads = new DLinkedNode[3];
+  private final DLinkedNode[] tails = new DLinkedNode[3];
+  private final int[] sizes = new int[3];
+
+  private final int maxWindow;
+  private final int maxMain;
+  private final int maxProtected;
+
+  public TinyLFUCache(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.maxWindow = Math.max(1, capacity / 100);
+    this.maxMain = capacity - maxWindow;
+    this.maxProtected = (int) (maxMain * 0.8);
+    this.sketch = new FrequencySketch(capacity);
+
+    for (int q = 0; q < 3; q++) {
+      heads[q] = new DLinkedNode();
+      tails[q] = new DLinkedNode();
+      heads[q].post = tails[q];
+      tails[q].pre = heads[q];
+    }
+  }
+
+  public int get(int key) {
+    sketch.increment(key);
+    DLinkedNode node = cache.get(key);
+    if (node == null) {
+      return -1;
+    }
+    onHit(node);
+    return node.value;
+  }
+
+  public void put(int key, int value) {
+    sketch.increment(key);
+    DLinkedNode node = cache.get(key);
+    if (node != null) {
+      node.value = value;
+      onHit(node);
+      return;
+    }
+
+    DLinkedNode newNode = new DLinkedNode();
+    newNode.key = key;
+    newNode.value = value;
+    cache.put(key, newNode);
+    addNode(newNode, WINDOW);
+
+    if (sizes[WINDOW] > maxWindow) {
+      // the window tail becomes a candidate for the main region
+      DLinkedNode candidate = popTail(WINDOW);
+      addNode(candidate, PROBATION);
+      if (sizes[PROBATION] + sizes[PROTECTED] > maxMain) {
+        evict(candidate);
+      }
+    }
+  }
+
+  /**
+   * Admit the candidate only if it is estimated to be more popular than the victim.
+   */
+  private void evict(DLinkedNode candidate) {
+    int victimQueue = sizes[PROBATION] > 0 ? PROBATION : PROTECTED;
+    DLinkedNode victim = tails[victimQueue].pre;
+    if (victim != candidate && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+      removeNode(victim);
+      cache.remove(victim.key);
+    } else {
+      removeNode(candidate);
+      cache.remove(candidate.key);
+    }
+  }
+
+  private void onHit(DLinkedNode node) {
+    if (node.queue == PROBATION) {
+      // a second hit promotes into protected, which may demote its own tail
+      removeNode(node);
+      addNode(node, PROTECTED);
+      if (sizes[PROTECTED] > maxProtected) {
+        addNode(popTail(PROTECTED), PROBATION);
+      }
+    } else {
+      int queue = node.queue;
+      removeNode(node);
+      addNode(node, queue);
+    }
+  }
+
+  /**
+   * Always add the new node right after the head of its queue;
+   */
+  private void addNode(DLinkedNode node, int queue) {
+    DLinkedNode head = heads[queue];
+    node.queue = queue;
+    node.pre = head;
+    node.post = head.post;
+
+    head.post.pre = node;
+    head.post = node;
+    sizes[queue]++;
+  }
+
+  private void removeNode(DLinkedNode node) {
+    DLinkedNode pre = node.pre;
+    DLinkedNode post = node.post;
+
+    pre.post = post;
+    post.pre = pre;
+    sizes[node.queue]--;
+  }
+
+  private DLinkedNode popTail(int queue) {
+    DLinkedNode res = tails[queue].pre;
+    this.removeNode(res);
+    return res;
+  }
+
+
+  // Trace replay: pass a file of one key per line, or run the built-in scan-heavy trace.
+  public static void main(String[] args) throws IOException {
+    int capacity = 1000;
+    int[] trace;
+    if (args.length > 0) {
+      try (Stream<String> lines = Files.lines(Paths.get(args[0]))) {
+        trace = lines.mapToInt(Integer::parseInt).toArray();
+      }
+    } else {
+      trace = scanHeavyTrace(2_000_000, 5000);
+    }
+
+    LRUCache lru = new LRUCache(capacity);
+    TinyLFUCache tinyLfu = new TinyLFUCache(capacity);
+    long lruHits = 0, tinyLfuHits = 0;
+    for (int key : trace) {
+      if (lru.get(key) != -1) {
+        lruHits++;
+      } else {
+        lru.put(key, key);
+      }
+      if (tinyLfu.get(key) != -1) {
+        tinyLfuHits++;
+      } else {
+        tinyLfu.put(key, key);
+      }
+    }
+
+    double lruRate = 100.0 * lruHits / trace.length;
+    double tinyLfuRate = 100.0 * tinyLfuHits / trace.length;
+    System.out.printf("requests=%d capacity=%d%n", trace.length, capacity);
+    System.out.printf("LRUCache      hit rate %6.2f%%%n", lruRate);
+    System.out.printf("TinyLFUCache  hit rate %6.2f%%  (%+.2f)%n", tinyLfuRate, tinyLfuRate - lruRate);
+  }
+
+  // Zipf-like lookups over hotKeys, interrupted by bursts of one-off keys.
+  private static int[] scanHeavyTrace(int length, int hotKeys) {
+    Random random = new Random(42);
+    double[] cdf = new double[hotKeys];
+    double sum = 0;
+    for (int i = 0; i < hotKeys; i++) {
+      sum += 1.0 / (i + 1);
+      cdf[i] = sum;
+    }
+
+    int[] trace = new int[length];
+    int nextScanKey = hotKeys;
+    for (int i = 0; i < length; ) {
+      if (random.nextInt(10_000) == 0) {
+        for (int burst = 0; burst < 2000 && i < length; burst++) {
+          trace[i++] = nextScanKey++;
+        }
+      } else {
+        int idx = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+        trace[i++] = idx >= 0 ? idx : -idx - 1;
+      }
+    }
+    return trace;
+  }
+}
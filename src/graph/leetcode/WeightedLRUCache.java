@@ -0,0 +1,160 @@
+package graph.leetcode;
+
+import java.util.HashMap;
+
+/**
+ * {@link LRUCache} bounded by total weight instead of entry count. A weigher gives each
+ * entry's cost (for example its size in bytes), tail entries are evicted until the total
+ * fits the budget again, and a single entry heavier than maxEntryFraction of the budget
+ * is rejected rather than flushing the whole cache.
+ */
+public class WeightedLRUCache<K, V> {
+
+  public interface Weigher<K, V> {
+    int weigh(K key, V value);
+  }
+
+  class DLinkedNode {
+    K key;
+    V value;
+    int weight;
+    DLinkedNode pre;
+    DLinkedNode post;
+  }
+
+  private final HashMap<K, DLinkedNode> cache = new HashMap<>();
+  private final Weigher<K, V> weigher;
+  private final long maxWeight;
+  private final long maxEntryWeight;
+  private long weight;
+  private DLinkedNode head, tail;
+
+  public WeightedLRUCache(long maxWeight, Weigher<K, V> weigher) {
+    this(maxWeight, 1.0, weigher);
+  }
+
+  /**
+   * @param maxEntryFraction largest share of maxWeight a single entry may take, in (0, 1]
+   */
+  public WeightedLRUCache(long maxWeight, double maxEntryFraction, Weigher<K, V> weigher) {
+    if (maxWeight < 0) {
+      throw new IllegalArgumentException("maxWeight must not be negative: " + maxWeight);
+    }
+    if (!(maxEntryFraction > 0 && maxEntryFraction <= 1)) {
+      throw new IllegalArgumentException("maxEntryFraction must be in (0, 1]: " + maxEntryFraction);
+    }
+    this.maxWeight = maxWeight;
+    this.maxEntryWeight = (long) (maxWeight * maxEntryFraction);
+    this.weigher = weigher;
+
+    head = new DLinkedNode();
+    tail = new DLinkedNode();
+    head.post = tail;
+    tail.pre = head;
+  }
+
+  public V get(K key) {
+    DLinkedNode node = cache.get(key);
+    if (node == null) {
+      return null;
+    }
+    this.moveToHead(node);
+    return node.value;
+  }
+
+  /**
+   * @return false if the entry was rejected for being too heavy; any previous value for
+   *         the key is removed in that case so a stale value is never served
+   */
+  public boolean put(K key, V value) {
+    int entryWeight = weigher.weigh(key, value);
+    if (entryWeight < 0) {
+      throw new IllegalArgumentException("negative weight " + entryWeight + " for key " + key);
+    }
+
+    DLinkedNode node = cache.get(key);
+    if (entryWeight > maxEntryWeight) {
+      if (node != null) {
+        remove(node);
+      }
+      return false;
+    }
+
+    if (node == null) {
+      node = new DLinkedNode();
+      node.key = key;
+      cache.put(key, node);
+      this.addNode(node);
+    } else {
+      weight -= node.weight;
+      this.moveToHead(node);
+    }
+    node.value = value;
+    node.weight = entryWeight;
+    weight += entryWeight;
+
+    // evict from the tail until the budget is met, the new entry is at the head
+    while (weight > maxWeight) {
+      remove(tail.pre);
+    }
+    return true;
+  }
+
+  public long weight() {
+    return weight;
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  private void remove(DLinkedNode node) {
+    this.removeNode(node);
+    cache.remove(node.key);
+    weight -= node.weight;
+  }
+
+  /**
+   * Always add the new node right after head;
+   */
+  private void addNode(DLinkedNode node) {
+    node.pre = head;
+    node.post = head.post;
+
+    head.post.pre = node;
+    head.post = node;
+  }
+
+  private void removeNode(DLinkedNode node) {
+    DLinkedNode pre = node.pre;
+    DLinkedNode post = node.post;
+
+    pre.post = post;
+    post.pre = pre;
+  }
+
+  private void moveToHead(DLinkedNode node) {
+    this.removeNode(node);
+    this.addNode(node);
+  }
+
+
+  public static void main(String[] args) {
+    // 1 KB budget, no single value above a quarter of it
+    WeightedLRUCache<String, byte[]> cache =
+        new WeightedLRUCache<>(1024, 0.25, (key, value) -> value.length);
+
+    cache.put("a", new byte[200]);
+    cache.put("b", new byte[200]);
+    cache.put("c", new byte[200]);
+    System.out.println(cache.size() + " entries, " + cache.weight() + " bytes");
+
+    System.out.println("oversized accepted: " + cache.put("huge", new byte[600]));
+
+    cache.get("a");
+    cache.put("d", new byte[250]);
+    cache.put("e", new byte[250]);  // evicts b, the least recently used
+    System.out.println(cache.get("b") == null ? "b evicted" : "b kept");
+    System.out.println(cache.size() + " entries, " + cache.weight() + " bytes");
+  }
+}
@@ -0,0 +1,219 @@
+package graph.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Multi-pattern generalization of {@link KMPSearchPattern}. The patterns form a trie, and each
+ * state gets a failure link to its longest proper suffix that is also a trie prefix. This is
+ * the LPS array of computeLPSArray spread over many patterns at once. The failure links are
+ * then folded into a dense transition table, so every text byte costs one array load.
+ *
+ * To keep the table small, bytes are mapped to equivalence classes. Every byte that occurs
+ * in no pattern shares class 0. Like {@link KMPMatcher}, the state carries over between
+ * chunks, so the text can be streamed.
+ */
+public class AhoCorasick {
+
+  public interface MatchListener {
+    /**
+     * @param pattern index of the pattern in the array given to the constructor
+     * @param offset  stream offset of the first byte of the match
+     */
+    void onMatch(int pattern, long offset);
+  }
+
+  private final int[] byteClass = new int[256];
+  private final int alphabet;
+  private final int[] delta;      // delta[state * alphabet + class]
+  private final int[] output;     // pattern ending exactly at state, or -1
+  private final int[] dictLink;   // nearest suffix state with an output, or -1
+  private final int[] lengths;
+
+  private int state;
+  private long position;
+
+  public AhoCorasick(String[] patterns) {
+    this(toBytes(patterns));
+  }
+
+  /**
+   * @throws IllegalArgumentException if a pattern is empty, or the states times byte classes
+   *                                  of the patterns do not fit in one int[] table
+   */
+  public AhoCorasick(byte[][] patterns) {
+    int classes = 1;
+    long totalLength = 1;
+    lengths = new int[patterns.length];
+    for (int p = 0; p < patterns.length; p++) {
+      if (patterns[p].length == 0) {
+        throw new IllegalArgumentException("empty pattern at index " + p);
+      }
+      lengths[p] = patterns[p].length;
+      totalLength += patterns[p].length;
+      for (byte b : patterns[p]) {
+        if (byteClass[b & 0xff] == 0) {
+          byteClass[b & 0xff] = classes++;
+        }
+      }
+    }
+    alphabet = classes;
+
+    // trie, with 0 marking a missing edge (the root is never a child); states never exceed
+    // totalLength, but shared prefixes usually keep them far fewer, so the table grows
+    int capacity = (int) Math.min(totalLength, 1024);
+    int[] go = new int[tableSize(capacity, alphabet)];
+    int[] out = new int[capacity];
+    Arrays.fill(out, -1);
+    int states = 1;
+    for (int p = 0; p < patterns.length; p++) {
+      int s = 0;
+      for (byte b : patterns[p]) {
+        int idx = s * alphabet + byteClass[b & 0xff];
+        if (go[idx] == 0) {
+          if (states == capacity) {
+            capacity = (int) Math.min(2L * capacity, totalLength);
+            go = Arrays.copyOf(go, tableSize(capacity, alphabet));
+            out = Arrays.copyOf(out, capacity);
+            Arrays.fill(out, states, capacity, -1);
+          }
+          go[idx] = states++;
+        }
+        s = go[idx];
+      }
+      if (out[s] == -1) {
+        out[s] = p; // duplicate patterns report the first index
+      }
+    }
+
+    delta = Arrays.copyOf(go, states * alphabet);
+    output = Arrays.copyOf(out, states);
+    dictLink = new int[states];
+    int[] fail = new int[states];
+    Arrays.fill(dictLink, -1);
+
+    // BFS: a missing edge takes the transition of the failure state, which is already done
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    for (int c = 0; c < alphabet; c++) {
+      int child = delta[c];
+      if (child != 0) {
+        fail[child] = 0;
+        queue.add(child);
+      }
+    }
+    while (!queue.isEmpty()) {
+      int s = queue.poll();
+      int f = fail[s];
+      dictLink[s] = output[f] != -1 ? f : dictLink[f];
+      for (int c = 0; c < alphabet; c++) {
+        int idx = s * alphabet + c;
+        int child = delta[idx];
+        if (child != 0) {
+          fail[child] = delta[f * alphabet + c];
+          queue.add(child);
+        } else {
+          delta[idx] = delta[f * alphabet + c];
+        }
+      }
+    }
+  }
+
+  public void feed(byte[] chunk, int offset, int length, MatchListener listener) {
+    int[] d = delta;
+    int[] cls = byteClass;
+    int a = alphabet;
+    int s = state;
+    int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      s = d[s * a + cls[chunk[i] & 0xff]];
+      if (output[s] != -1 || dictLink[s] != -1) {
+        long last = position + (i - offset);
+        for (int o = output[s] != -1 ? s : dictLink[s]; o != -1; o = dictLink[o]) {
+          int p = output[o];
+          listener.onMatch(p, last - lengths[p] + 1);
+        }
+      }
+    }
+    state = s;
+    position += length;
+  }
+
+  /**
+   * Forget the partial match and restart offsets at 0.
+   */
+  public void reset() {
+    state = 0;
+    position = 0;
+  }
+
+  public int states() {
+    return output.length;
+  }
+
+  // states * alphabet, computed in long so that a pattern set too large for one array is
+  // reported instead of overflowing into a wrong or negative size
+  private static int tableSize(long states, int alphabet) {
+    long size = states * alphabet;
+    if (size > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("patterns need " + states + " states x " + alphabet
+          + " byte classes, more than one transition table can hold");
+    }
+    return (int) size;
+  }
+
+  private static byte[][] toBytes(String[] patterns) {
+    byte[][] bytes = new byte[patterns.length][];
+    for (int i = 0; i < patterns.length; i++) {
+      bytes[i] = patterns[i].getBytes(StandardCharsets.UTF_8);
+    }
+    return bytes;
+  }
+
+
+  // One Aho-Corasick pass against a KMPMatcher pass per pattern.
+  public static void main(String[] args) {
+    AhoCorasick demo = new AhoCorasick(new String[]{"he", "she", "his", "hers"});
+    byte[] ushers = "ushers".getBytes(StandardCharsets.US_ASCII);
+    demo.feed(ushers, 0, ushers.length,
+        (pattern, offset) -> System.out.println("pattern " + pattern + " at " + offset));
+
+    Random random = new Random(7);
+    byte[] text = randomWord(random, 4 << 20);
+    long[] sink = new long[1];
+    for (int count : new int[]{10, 1_000, 50_000}) {
+      byte[][] patterns = new byte[count][];
+      for (int i = 0; i < count; i++) {
+        patterns[i] = randomWord(random, 6 + random.nextInt(7));
+      }
+
+      long start = System.nanoTime();
+      AhoCorasick automaton = new AhoCorasick(patterns);
+      long build = System.nanoTime() - start;
+      start = System.nanoTime();
+      automaton.feed(text, 0, text.length, (p, o) -> sink[0]++);
+      long acNanos = System.nanoTime() - start;
+
+      // repeated KMP grows linearly with the pattern count, time a sample and scale it up
+      int sampled = Math.min(count, 100);
+      start = System.nanoTime();
+      for (int i = 0; i < sampled; i++) {
+        new KMPMatcher(patterns[i]).feed(text, 0, text.length, o -> sink[0]++);
+      }
+      double kmpNanos = (System.nanoTime() - start) * ((double) count / sampled);
+
+      System.out.printf("%6d patterns: Aho-Corasick %8.1f ms (+%.1f ms build, %d states), "
+              + "repeated KMP %10.1f ms%s%n", count, acNanos / 1e6, build / 1e6, automaton.states(),
+          kmpNanos / 1e6, sampled < count ? " (extrapolated)" : "");
+    }
+  }
+
+  private static byte[] randomWord(Random random, int length) {
+    byte[] word = new byte[length];
+    for (int i = 0; i < length; i++) {
+      word[i] = (byte) ('a' + random.nextInt(26));
+    }
+    return word;
+  }
+}
@@ -40,7 +40,7 @@ public class BinarySearch {
 
 
 
-		private static  int test (int arr[], int val){
+		static int test (int arr[], int val){
 
 		if ( arr.length ==0 ){return -1;}
 
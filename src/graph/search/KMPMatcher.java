@@ -0,0 +1,148 @@
+package graph.search;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming form of {@link KMPSearchPattern}: the LPS array is computed once per pattern and
+ * bytes are fed in chunks of any size. The match state survives chunk boundaries, so a match
+ * split across two ByteBuffers or reads is still found. Matches are reported as absolute
+ * stream offsets and the search loop allocates nothing.
+ */
+public class KMPMatcher {
+
+  public interface MatchListener {
+    void onMatch(long offset);
+  }
+
+  private final byte[] pattern;
+  private final int[] lps;
+  private byte[] readBuffer;
+
+  private int matched;  // bytes of pattern matched so far, j in KMPSearch
+  private long position; // stream offset of the next byte
+
+  public KMPMatcher(byte[] pattern) {
+    if (pattern.length == 0) {
+      throw new IllegalArgumentException("empty pattern");
+    }
+    this.pattern = pattern.clone();
+    this.lps = new int[pattern.length];
+    KMPSearchPattern.computeLPSArray(this.pattern, lps);
+  }
+
+  public KMPMatcher(String pattern) {
+    this(pattern.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Consume the buffer's remaining bytes, leaving its position at the limit.
+   */
+  public void feed(ByteBuffer buffer, MatchListener listener) {
+    if (buffer.hasArray()) {
+      int start = buffer.arrayOffset() + buffer.position();
+      feed(buffer.array(), start, buffer.remaining(), listener);
+      buffer.position(buffer.limit());
+      return;
+    }
+    byte[] pat = pattern;
+    int m = pat.length;
+    int j = matched;
+    int pos = buffer.position();
+    int limit = buffer.limit();
+    for (int i = pos; i < limit; i++) {
+      byte b = buffer.get(i);
+      while (j > 0 && pat[j] != b) {
+        j = lps[j - 1];
+      }
+      if (pat[j] == b) {
+        j++;
+      }
+      if (j == m) {
+        listener.onMatch(position + (i - pos) + 1 - m);
+        j = lps[j - 1];
+      }
+    }
+    position += limit - pos;
+    matched = j;
+    buffer.position(limit);
+  }
+
+  public void feed(byte[] chunk, int offset, int length, MatchListener listener) {
+    byte[] pat = pattern;
+    int m = pat.length;
+    int j = matched;
+    int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      byte b = chunk[i];
+      while (j > 0 && pat[j] != b) {
+        j = lps[j - 1];
+      }
+      if (pat[j] == b) {
+        j++;
+      }
+      if (j == m) {
+        listener.onMatch(position + (i - offset) + 1 - m);
+        j = lps[j - 1];
+      }
+    }
+    position += length;
+    matched = j;
+  }
+
+  /**
+   * Read the stream to its end through the matcher's own buffer; does not close it.
+   */
+  public void search(InputStream in, MatchListener listener) throws IOException {
+    if (readBuffer == null) {
+      readBuffer = new byte[64 * 1024];
+    }
+    int n;
+    while ((n = in.read(readBuffer)) != -1) {
+      feed(readBuffer, 0, n, listener);
+    }
+  }
+
+  /**
+   * Forget the partial match and restart offsets at 0, to reuse the matcher on a new stream.
+   */
+  public void reset() {
+    matched = 0;
+    position = 0;
+  }
+
+  public int patternLength() {
+    return pattern.length;
+  }
+
+  /**
+   * A fresh matcher for the same pattern that shares the precomputed LPS array.
+   */
+  public KMPMatcher copy() {
+    return new KMPMatcher(pattern, lps);
+  }
+
+  private KMPMatcher(byte[] pattern, int[] lps) {
+    this.pattern = pattern;
+    this.lps = lps;
+  }
+
+
+  public static void main(String[] args) throws IOException {
+    KMPMatcher matcher = new KMPMatcher("ABAB");
+    byte[] text = "ABABDABACDABABCABAB".getBytes(StandardCharsets.US_ASCII);
+
+    // the same text split into 3-byte chunks finds the same offsets as KMPSearch
+    for (int i = 0; i < text.length; i += 3) {
+      matcher.feed(ByteBuffer.wrap(text, i, Math.min(3, text.length - i)),
+          offset -> System.out.println("Found pattern at index " + offset));
+    }
+
+    matcher.reset();
+    matcher.search(new ByteArrayInputStream(text),
+        offset -> System.out.println("Found pattern at index " + offset + " (stream)"));
+  }
+}
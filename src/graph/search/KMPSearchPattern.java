@@ -77,6 +77,29 @@ public class KMPSearchPattern {
         }
     }
 
+    // Same as computeLPSArray(String, int[]) over the bytes of a pattern
+    static void computeLPSArray(byte[] pat, int lps[])
+    {
+        int len = 0;
+        int i = 1;
+        lps[0] = 0;
+
+        while (i < pat.length) {
+            if (pat[i] == pat[len]) {
+                len++;
+                lps[i] = len;
+                i++;
+            }
+            else if (len != 0) {
+                len = lps[len - 1];
+            }
+            else {
+                lps[i] = 0;
+                i++;
+            }
+        }
+    }
+
     // Driver program to test above function
     public static void main(String args[])
     {
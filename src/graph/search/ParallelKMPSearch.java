@@ -0,0 +1,180 @@
+package graph.search;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel KMP search over a memory-mapped file. The file is cut into chunks, each extended by
+ * patternLength - 1 bytes into the next one, so a match that crosses a chunk border is still
+ * seen. Each chunk only reports matches that start inside it. That rule makes the overlap
+ * yield no duplicates, and the results come back sorted in file order. Chunks run as
+ * fork/join tasks sharing one precomputed LPS array, and each maps its chunk with
+ * FileChannel.map one bounded window at a time, so only one window per running task is
+ * reachable however large the file is.
+ */
+public class ParallelKMPSearch {
+
+  static final long DEFAULT_CHUNK_SIZE = 16L << 20;
+  // most a task maps at once; each window is dropped before the next is mapped
+  static final int MAP_WINDOW = 4 << 20;
+
+  public static long[] search(Path file, String pattern) throws IOException {
+    return search(file, pattern.getBytes(StandardCharsets.UTF_8), DEFAULT_CHUNK_SIZE,
+        ForkJoinPool.commonPool());
+  }
+
+  /**
+   * @return start offsets of every match, sorted and without duplicates
+   */
+  public static long[] search(Path file, byte[] pattern, long chunkSize, ForkJoinPool pool)
+      throws IOException {
+    if (chunkSize < 1 || chunkSize + pattern.length > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("chunkSize out of range: " + chunkSize);
+    }
+    KMPMatcher matcher = new KMPMatcher(pattern);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+      if (chunks == 0) {
+        return new long[0];
+      }
+      try {
+        return pool.invoke(new ChunkTask(channel, matcher, size, chunkSize, 0, chunks));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+  }
+
+  static class ChunkTask extends RecursiveTask<long[]> {
+    private static final long serialVersionUID = 1L;
+
+    private final FileChannel channel;
+    private final KMPMatcher matcher;
+    private final long size;
+    private final long chunkSize;
+    private final int from, to;
+
+    ChunkTask(FileChannel channel, KMPMatcher matcher, long size, long chunkSize, int from, int to) {
+      this.channel = channel;
+      this.matcher = matcher;
+      this.size = size;
+      this.chunkSize = chunkSize;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (to - from == 1) {
+        return searchChunk(from);
+      }
+      int mid = (from + to) >>> 1;
+      ChunkTask left = new ChunkTask(channel, matcher, size, chunkSize, from, mid);
+      ChunkTask right = new ChunkTask(channel, matcher, size, chunkSize, mid, to);
+      left.fork();
+      long[] r = right.compute();
+      long[] l = left.join();
+      // left chunks precede right ones, so concatenating keeps the offsets sorted
+      long[] merged = Arrays.copyOf(l, l.length + r.length);
+      System.arraycopy(r, 0, merged, l.length, r.length);
+      return merged;
+    }
+
+    private long[] searchChunk(int chunk) {
+      long start = chunk * chunkSize;
+      long ownedEnd = Math.min(start + chunkSize, size);
+      long mappedEnd = Math.min(ownedEnd + matcher.patternLength() - 1, size);
+
+      long[][] found = {new long[16]};
+      int[] count = {0};
+      KMPMatcher local = matcher.copy();
+      KMPMatcher.MatchListener listener = offset -> {
+        long absolute = start + offset;
+        if (absolute < ownedEnd) {
+          if (count[0] == found[0].length) {
+            found[0] = Arrays.copyOf(found[0], count[0] * 2);
+          }
+          found[0][count[0]++] = absolute;
+        }
+      };
+      // the matcher carries its state across feeds, so the windows need no overlap
+      for (long from = start; from < mappedEnd; from += MAP_WINDOW) {
+        MappedByteBuffer window;
+        try {
+          window = channel.map(FileChannel.MapMode.READ_ONLY, from,
+              Math.min(MAP_WINDOW, mappedEnd - from));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        local.feed(window, listener);
+      }
+      return Arrays.copyOf(found[0], count[0]);
+    }
+  }
+
+
+  public static void main(String[] args) throws IOException {
+    Path file = args.length > 0 ? Path.of(args[0]) : writeSample(256 << 20);
+    byte[] pattern = (args.length > 1 ? args[1] : "needle").getBytes(StandardCharsets.UTF_8);
+    ForkJoinPool single = new ForkJoinPool(1);
+    try {
+      for (int round = 0; round < 3; round++) {
+        long start = System.nanoTime();
+        long[] sequential = search(file, pattern, DEFAULT_CHUNK_SIZE, single);
+        long seqNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long[] parallel = search(file, pattern, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+        long parNanos = System.nanoTime() - start;
+
+        double mb = Files.size(file) / 1e6;
+        System.out.printf("%d matches, 1 thread %.0f MB/s, parallel (%d threads) %.0f MB/s, "
+                + "same result: %b%n", parallel.length, mb / (seqNanos / 1e9),
+            ForkJoinPool.commonPool().getParallelism(), mb / (parNanos / 1e9),
+            Arrays.equals(sequential, parallel));
+      }
+    } finally {
+      single.shutdown();
+      if (args.length == 0) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  // random lowercase text with the pattern planted at random offsets, some across chunk borders
+  private static Path writeSample(int size) throws IOException {
+    Path file = Files.createTempFile("kmp", ".txt");
+    Random random = new Random(1);
+    byte[] block = new byte[1 << 20];
+    try (OutputStream out = Files.newOutputStream(file)) {
+      for (int written = 0; written < size; written += block.length) {
+        for (int i = 0; i < block.length; i++) {
+          block[i] = (byte) ('a' + random.nextInt(26));
+        }
+        byte[] needle = "needle".getBytes(StandardCharsets.US_ASCII);
+        for (int k = 0; k < 8; k++) {
+          System.arraycopy(needle, 0, block, random.nextInt(block.length - 6), 6);
+        }
+        // "nee" ends this block and "dle" starts the next, every 16th one is a chunk border
+        if (written > 0) {
+          System.arraycopy(needle, 3, block, 0, 3);
+        }
+        System.arraycopy(needle, 0, block, block.length - 3, 3);
+        out.write(block);
+      }
+    }
+    return file;
+  }
+}
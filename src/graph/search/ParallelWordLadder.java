@@ -0,0 +1,253 @@
+package graph.search;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Level-synchronous parallel form of {@link WordLadderIndex#ladderLength}. Each level splits
+ * the smaller frontier across a ForkJoinPool. Words and buckets are claimed with an atomic
+ * test-and-set on shared bitsets, so exactly one task adds each word to the next frontier.
+ * The per-task pieces are merged and sorted after the level. A word's depth depends only
+ * on its level, never on which task claimed it, so the answer and frontier order are the
+ * same from run to run.
+ */
+public class ParallelWordLadder {
+
+  private static final int SEQUENTIAL_THRESHOLD = 512;
+
+  private final WordLadderIndex index;
+  private final ForkJoinPool pool;
+  // both sides' arrays, reused by queries from the same calling thread
+  private final ThreadLocal<Side[]> scratch;
+
+  public ParallelWordLadder(WordLadderIndex index, ForkJoinPool pool) {
+    this.index = index;
+    this.pool = pool;
+    int words = index.words.length;
+    int buckets = index.bucketStart.length - 1;
+    this.scratch = ThreadLocal.withInitial(
+        () -> new Side[]{new Side(words, buckets), new Side(words, buckets)});
+  }
+
+  /**
+   * Same contract as {@link WordLadderIndex#ladderLength}.
+   */
+  public int ladderLength(String beginWord, String endWord) {
+    Integer end = index.ids.get(endWord);
+    if (end == null) {
+      return 0;
+    }
+    if (beginWord.equals(endWord)) {
+      return 1;
+    }
+    Integer begin = index.ids.get(beginWord);
+    if (begin == null) {
+      // the sequential index already handles a start outside the dictionary
+      return index.ladderLength(beginWord, endWord);
+    }
+
+    Side[] sides = scratch.get();
+    Side a = sides[0].reset(begin);
+    Side b = sides[1].reset(end);
+    while (a.frontier.length > 0 && b.frontier.length > 0) {
+      if (a.frontier.length > b.frontier.length) {
+        Side t = a;
+        a = b;
+        b = t;
+      }
+      Level level = pool.invoke(new ExpandTask(a, b, 0, a.frontier.length));
+      Arrays.sort(level.next, 0, level.size);
+      a.frontier = Arrays.copyOf(level.next, level.size);
+      if (level.best > 0) {
+        return level.best;
+      }
+    }
+    return 0;
+  }
+
+  static final class Side {
+    final ConcurrentBitSet visited;
+    final ConcurrentBitSet expanded;
+    final int[] dist;
+    int[] frontier;
+
+    Side(int words, int buckets) {
+      visited = new ConcurrentBitSet(words);
+      expanded = new ConcurrentBitSet(buckets);
+      dist = new int[words];
+    }
+
+    Side reset(int root) {
+      visited.clear();
+      expanded.clear();
+      visited.testAndSet(root);
+      dist[root] = 1;
+      frontier = new int[]{root};
+      return this;
+    }
+  }
+
+  static final class Level {
+    int[] next;
+    int size;
+    int best;
+
+    Level(int capacity) {
+      next = new int[capacity];
+    }
+
+    void add(int w) {
+      if (size == next.length) {
+        next = Arrays.copyOf(next, Math.max(16, size * 2));
+      }
+      next[size++] = w;
+    }
+
+    void offer(int length) {
+      if (best == 0 || length < best) {
+        best = length;
+      }
+    }
+  }
+
+  final class ExpandTask extends RecursiveTask<Level> {
+    private static final long serialVersionUID = 1L;
+
+    private final Side a, b;
+    private final int from, to;
+
+    ExpandTask(Side a, Side b, int from, int to) {
+      this.a = a;
+      this.b = b;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Level compute() {
+      if (to - from > SEQUENTIAL_THRESHOLD) {
+        int mid = (from + to) >>> 1;
+        ExpandTask left = new ExpandTask(a, b, from, mid);
+        left.fork();
+        Level right = new ExpandTask(a, b, mid, to).compute();
+        Level merged = left.join();
+        for (int i = 0; i < right.size; i++) {
+          merged.add(right.next[i]);
+        }
+        if (right.best > 0) {
+          merged.offer(right.best);
+        }
+        return merged;
+      }
+
+      Level level = new Level(16);
+      for (int f = from; f < to; f++) {
+        int w = a.frontier[f];
+        int depth = a.dist[w];
+        for (int k = index.wordStart[w]; k < index.wordStart[w + 1]; k++) {
+          int bucket = index.wordBuckets[k];
+          if (!a.expanded.testAndSet(bucket)) {
+            continue; // another task owns it, or an earlier level did
+          }
+          for (int m = index.bucketStart[bucket]; m < index.bucketStart[bucket + 1]; m++) {
+            int v = index.bucketWords[m];
+            if (b.visited.get(v)) {
+              level.offer(depth + b.dist[v]);
+            }
+            if (a.visited.testAndSet(v)) {
+              a.dist[v] = depth + 1;
+              level.add(v);
+            }
+          }
+        }
+      }
+      return level;
+    }
+  }
+
+  /**
+   * Fixed-size bitset whose bits are set with compare-and-set.
+   */
+  static final class ConcurrentBitSet {
+    private final AtomicLongArray words;
+
+    ConcurrentBitSet(int bits) {
+      words = new AtomicLongArray((bits + 63) >>> 6);
+    }
+
+    void clear() {
+      for (int i = 0; i < words.length(); i++) {
+        words.setPlain(i, 0L);
+      }
+    }
+
+    boolean get(int bit) {
+      return (words.get(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    /**
+     * Set bit, returning true only for the caller that changed it from 0 to 1.
+     */
+    boolean testAndSet(int bit) {
+      int i = bit >>> 6;
+      long mask = 1L << bit;
+      long old = words.get(i);
+      while ((old & mask) == 0) {
+        long witness = words.compareAndExchange(i, old, old | mask);
+        if (witness == old) {
+          return true;
+        }
+        old = witness;
+      }
+      return false;
+    }
+  }
+
+
+  public static void main(String[] arr) {
+    // half of all 6-letter words over a..j
+    Random random = new Random(9);
+    Set<String> dictionary = new HashSet<>();
+    char[] chs = new char[6];
+    for (int n = 0; n < 1_000_000; n++) {
+      int x = n;
+      for (int i = 0; i < chs.length; i++) {
+        chs[i] = (char) ('a' + x % 10);
+        x /= 10;
+      }
+      if (random.nextBoolean()) {
+        dictionary.add(new String(chs));
+      }
+    }
+    String[] words = dictionary.toArray(new String[0]);
+    WordLadderIndex index = new WordLadderIndex(dictionary);
+    ParallelWordLadder parallel = new ParallelWordLadder(index, ForkJoinPool.commonPool());
+
+    int queries = 200;
+    String[][] pairs = new String[queries][];
+    for (int q = 0; q < queries; q++) {
+      pairs[q] = new String[]{words[random.nextInt(words.length)], words[random.nextInt(words.length)]};
+    }
+    for (int round = 0; round < 3; round++) {
+      long sumSeq = 0, sumPar = 0;
+      long start = System.nanoTime();
+      for (String[] pair : pairs) {
+        sumSeq += index.ladderLength(pair[0], pair[1]);
+      }
+      long seqNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (String[] pair : pairs) {
+        sumPar += parallel.ladderLength(pair[0], pair[1]);
+      }
+      long parNanos = System.nanoTime() - start;
+      System.out.printf("%d words: sequential %.2f ms, parallel (%d threads) %.2f ms per query, "
+              + "same lengths: %b%n", words.length, seqNanos / 1e6 / queries,
+          ForkJoinPool.commonPool().getParallelism(), parNanos / 1e6 / queries, sumSeq == sumPar);
+    }
+  }
+}
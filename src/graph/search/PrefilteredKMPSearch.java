@@ -0,0 +1,262 @@
+package graph.search;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Prefilter in front of {@link KMPMatcher} for patterns that rarely match. Each search
+ * samples the byte frequencies of its own text and picks the pattern's adjacent byte pair
+ * whose bytes are rarest there. The scan then loads the text 8 bytes at a time as longs
+ * and flags every lane where that pair starts, using SWAR zero-byte tests. Only around
+ * flagged positions does the KMP automaton run, so most of the text is never visited byte
+ * by byte.
+ *
+ * The automaton never goes back over bytes it has already read. A candidate that overlaps
+ * the previous one continues from where that one stopped, with the same state. When
+ * candidates are dense, the search therefore degrades to one plain KMP pass, O(n + m),
+ * rather than a full-pattern compare at every candidate. Past about one candidate per 8
+ * bytes, the rest of the text skips the filter and runs straight through the automaton.
+ *
+ * Single-byte patterns have no pair and go through the plain KMPMatcher path. Matches
+ * are reported like {@link KMPMatcher}, as offsets from the start of the given range.
+ */
+public class PrefilteredKMPSearch {
+
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final long LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
+  private static final long ONES = 0x0101010101010101L;
+
+  // bytes sampled for the frequency count, in SAMPLE_BLOCKS blocks spread over the text
+  private static final int SAMPLE_BYTES = 64 * 1024;
+  private static final int SAMPLE_BLOCKS = 16;
+  // candidates allowed beyond one per 8 bytes before the rest runs as plain KMP
+  private static final int DENSE_SLACK = 1024;
+
+  private final byte[] pattern;
+  private final int[] lps;
+  private final KMPMatcher scalar;
+
+  public PrefilteredKMPSearch(String pattern) {
+    this(pattern.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public PrefilteredKMPSearch(byte[] pattern) {
+    this.pattern = pattern.clone();
+    this.scalar = new KMPMatcher(pattern);
+    this.lps = new int[pattern.length];
+    KMPSearchPattern.computeLPSArray(this.pattern, lps);
+  }
+
+  public void search(byte[] text, int offset, int length, KMPMatcher.MatchListener listener) {
+    if (pattern.length == 1) {
+      KMPMatcher matcher = scalar.copy();
+      matcher.feed(text, offset, length, listener);
+      return;
+    }
+
+    int m = pattern.length;
+    if (length < m) {
+      return;
+    }
+    int pairOffset = rarestPair(text, offset, length);
+    long first = (pattern[pairOffset] & 0xffL) * ONES;
+    long second = (pattern[pairOffset + 1] & 0xffL) * ONES;
+    Verifier verifier = new Verifier(text, offset, listener);
+    int end = offset + length;
+    // pair start positions that leave room for the whole pattern on both sides
+    int from = offset + pairOffset;
+    int to = end - (m - pairOffset); // inclusive
+    int i = from;
+    // the word at i + 1 reads up to i + 8, within end whenever i + 7 <= to
+    long candidates = 0;
+    for (; i + 7 <= to; i += 8) {
+      long a = (long) LONGS.get(text, i);
+      long b = (long) LONGS.get(text, i + 1);
+      long hits = zeroBytes(a ^ first) & zeroBytes(b ^ second);
+      if (hits == 0) {
+        continue;
+      }
+      candidates += Long.bitCount(hits);
+      if (candidates > ((i - from) >>> 3) + DENSE_SLACK) {
+        // more than one candidate per word: the filter only adds work now
+        verifier.finish(end);
+        return;
+      }
+      do {
+        int lane = Long.numberOfTrailingZeros(hits) >>> 3;
+        verifier.verify(i + lane - pairOffset);
+        hits &= hits - 1;
+      } while (hits != 0);
+    }
+    // tail that no longer fills a word
+    for (; i <= to; i++) {
+      if (text[i] == pattern[pairOffset] && text[i + 1] == pattern[pairOffset + 1]) {
+        verifier.verify(i - pairOffset);
+      }
+    }
+  }
+
+  /**
+   * KMP over the candidate windows of one search, in increasing order of start.
+   */
+  private final class Verifier {
+    private final byte[] text;
+    private final int offset;
+    private final KMPMatcher.MatchListener listener;
+    private int scanned;  // text before this index has been fed through the automaton
+    private int j;        // automaton state at scanned
+
+    Verifier(byte[] text, int offset, KMPMatcher.MatchListener listener) {
+      this.text = text;
+      this.offset = offset;
+      this.listener = listener;
+      this.scanned = offset;
+    }
+
+    // decide whether the pattern starts at start, reporting every match on the way
+    void verify(int start) {
+      int stop = start + pattern.length;
+      if (stop <= scanned || scanned - j > start) {
+        return; // an earlier window already decided it
+      }
+      if (start >= scanned) {
+        // every match starts at a candidate, so none can straddle the gap
+        scanned = start;
+        j = 0;
+      }
+      run(stop, start);
+    }
+
+    // feed everything from scanned up to end through the automaton
+    void finish(int end) {
+      run(end, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Run the automaton up to stop, or until the partial match it holds begins after
+     * start, which rules start out. Stopping early is safe: a later window that overlaps
+     * resumes from scanned with state j, and j covers every match still in progress.
+     */
+    private void run(int stop, int start) {
+      byte[] pat = pattern;
+      int m = pat.length;
+      int i = scanned;
+      while (i < stop) {
+        byte b = text[i];
+        while (j > 0 && pat[j] != b) {
+          j = lps[j - 1];
+        }
+        if (pat[j] == b) {
+          j++;
+        }
+        if (j == m) {
+          listener.onMatch(i + 1 - m - offset);
+          j = lps[j - 1];
+        }
+        i++;
+        if (i - j > start) {
+          break;
+        }
+      }
+      scanned = i;
+    }
+  }
+
+  /**
+   * High bit set in exactly the lanes of x that are zero, with no false positives
+   * from borrows between lanes.
+   */
+  private static long zeroBytes(long x) {
+    long t = (x & LOW_BITS) + LOW_BITS;
+    return ~(t | x | LOW_BITS);
+  }
+
+  /**
+   * Offset of the pattern pair whose bytes are least frequent in a sample of the text.
+   */
+  private int rarestPair(byte[] text, int offset, int length) {
+    int[] counts = new int[256];
+    if (length <= SAMPLE_BYTES) {
+      for (int i = offset; i < offset + length; i++) {
+        counts[text[i] & 0xff]++;
+      }
+    } else {
+      int block = SAMPLE_BYTES / SAMPLE_BLOCKS;
+      long stride = (long) (length - block) / (SAMPLE_BLOCKS - 1);
+      for (int k = 0; k < SAMPLE_BLOCKS; k++) {
+        int from = offset + (int) (k * stride);
+        for (int i = from; i < from + block; i++) {
+          counts[text[i] & 0xff]++;
+        }
+      }
+    }
+    int best = 0;
+    long bestScore = Long.MAX_VALUE;
+    for (int k = 0; k + 1 < pattern.length; k++) {
+      long score = (long) counts[pattern[k] & 0xff] * counts[pattern[k + 1] & 0xff];
+      if (score < bestScore) {
+        bestScore = score;
+        best = k;
+      }
+    }
+    return best;
+  }
+
+
+  // Plain KMPMatcher against the prefilter on a rare and a common pattern, then on a
+  // run of one byte where a pair from the pattern's body is a candidate at every position.
+  public static void main(String[] args) {
+    byte[] english = englishLikeText(new Random(3), 32 << 20);
+    byte[] run = new byte[16 << 20];
+    Arrays.fill(run, (byte) 'z');
+    String[] patterns = {"quixotic jazz", "the tea in the", "z".repeat(200) + "q", "z".repeat(200)};
+    String[] labels = {"\"quixotic jazz\"", "\"the tea in the\"", "z x 200 + q", "z x 200"};
+
+    for (int t = 0; t < patterns.length; t++) {
+      String p = patterns[t];
+      byte[] text = t < 2 ? english : run;
+      KMPMatcher kmp = new KMPMatcher(p);
+      PrefilteredKMPSearch prefiltered = new PrefilteredKMPSearch(p);
+      long[] kmpMatches = new long[1];
+      long[] preMatches = new long[1];
+      for (int round = 0; round < 5; round++) {
+        kmpMatches[0] = 0;
+        preMatches[0] = 0;
+
+        long start = System.nanoTime();
+        kmp.reset();
+        kmp.feed(text, 0, text.length, o -> kmpMatches[0]++);
+        long kmpNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        prefiltered.search(text, 0, text.length, o -> preMatches[0]++);
+        long preNanos = System.nanoTime() - start;
+
+        if (round == 4) {
+          System.out.printf("%-16s KMP %7.0f MB/s, prefiltered %7.0f MB/s, matches %d/%d%n",
+              labels[t], text.length / 1e3 / (kmpNanos / 1e6),
+              text.length / 1e3 / (preNanos / 1e6), kmpMatches[0], preMatches[0]);
+        }
+      }
+    }
+  }
+
+  // letters drawn with roughly English frequencies, words split by spaces
+  private static byte[] englishLikeText(Random random, int length) {
+    String weighted = "eeeeeeeeeeeetttttttttaaaaaaaaoooooooiiiiiiinnnnnnnsssssshhhhhhrrrrrrddddlllluuucccmmwwffggyyppbbvkjxqz";
+    byte[] text = new byte[length];
+    for (int i = 0; i < length; i++) {
+      text[i] = random.nextInt(6) == 0 ? (byte) ' ' : (byte) weighted.charAt(random.nextInt(weighted.length()));
+    }
+    byte[] planted = "the tea in the quixotic jazz".getBytes(StandardCharsets.US_ASCII);
+    for (int k = 0; k < 100; k++) {
+      System.arraycopy(planted, 0, text, random.nextInt(length - planted.length), planted.length);
+    }
+    return text;
+  }
+}
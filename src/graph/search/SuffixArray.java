@@ -0,0 +1,338 @@
+package graph.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+//https://en.wikipedia.org/wiki/Suffix_array
+/**
+ * Suffix array and LCP index over a fixed byte corpus, for many substring queries against text
+ * that rarely changes. Unlike {@link KMPSearchPattern}, nothing is rebuilt per query: count
+ * and locate binary-search the sorted suffixes in O(m log n), and the longest repeated
+ * substring is the largest LCP entry, found in O(n).
+ *
+ * The suffix array is built by prefix doubling with counting sorts, O(n log n), and the LCP
+ * array with Kasai's algorithm. {@link #save} writes text, SA and LCP to one file;
+ * {@link #load} maps it back read-only and queries run on the mapping without copying.
+ */
+public class SuffixArray {
+
+  private static final int MAGIC = 0x53414c31; // "SAL1"
+  private static final int HEADER_BYTES = 8;
+
+  private final ByteBuffer text;
+  private final IntBuffer sa;
+  private final IntBuffer lcp; // lcp[i] = common prefix of suffixes sa[i - 1] and sa[i]
+  private final int n;
+
+  public SuffixArray(byte[] corpus) {
+    this.n = corpus.length;
+    int[] suffixes = buildSuffixArray(corpus);
+    this.text = ByteBuffer.wrap(corpus.clone());
+    this.sa = IntBuffer.wrap(suffixes);
+    this.lcp = IntBuffer.wrap(buildLcp(corpus, suffixes));
+  }
+
+  public SuffixArray(String corpus) {
+    this(corpus.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private SuffixArray(ByteBuffer text, IntBuffer sa, IntBuffer lcp, int n) {
+    this.text = text;
+    this.sa = sa;
+    this.lcp = lcp;
+    this.n = n;
+  }
+
+  public int count(byte[] pattern) {
+    int lo = lowerBound(pattern);
+    return upperBound(pattern, lo) - lo;
+  }
+
+  /**
+   * Start offsets of every occurrence, in ascending order.
+   */
+  public int[] locate(byte[] pattern) {
+    int lo = lowerBound(pattern);
+    int hi = upperBound(pattern, lo);
+    int[] positions = new int[hi - lo];
+    for (int i = lo; i < hi; i++) {
+      positions[i - lo] = sa.get(i);
+    }
+    Arrays.sort(positions);
+    return positions;
+  }
+
+  public int count(String pattern) {
+    return count(pattern.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public int[] locate(String pattern) {
+    return locate(pattern.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * The longest substring occurring at least twice, as bytes; empty if none repeats.
+   */
+  public byte[] longestRepeatedSubstring() {
+    int best = 0;
+    int at = 0;
+    for (int i = 1; i < n; i++) {
+      if (lcp.get(i) > best) {
+        best = lcp.get(i);
+        at = sa.get(i);
+      }
+    }
+    byte[] result = new byte[best];
+    for (int k = 0; k < best; k++) {
+      result[k] = text.get(at + k);
+    }
+    return result;
+  }
+
+  public int length() {
+    return n;
+  }
+
+  // first suffix not less than pattern
+  private int lowerBound(byte[] pattern) {
+    int lo = 0, hi = n;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (compare(sa.get(mid), pattern) < 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  // first suffix that is greater and does not start with pattern
+  private int upperBound(byte[] pattern, int from) {
+    int lo = from, hi = n;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (compare(sa.get(mid), pattern) <= 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Compare the suffix at start with pattern, treating a suffix that starts with the
+   * pattern as equal.
+   */
+  private int compare(int start, byte[] pattern) {
+    int len = Math.min(pattern.length, n - start);
+    for (int k = 0; k < len; k++) {
+      int c = (text.get(start + k) & 0xff) - (pattern[k] & 0xff);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return len == pattern.length ? 0 : -1;
+  }
+
+  static int[] buildSuffixArray(byte[] s) {
+    int n = s.length;
+    int[] sa = new int[n];
+    int[] rank = new int[n];
+    int[] tmp = new int[n];
+    int[] count = new int[Math.max(256, n) + 1];
+    if (n == 0) {
+      return sa;
+    }
+
+    // sort by first byte
+    for (int i = 0; i < n; i++) {
+      rank[i] = s[i] & 0xff;
+      count[rank[i]]++;
+    }
+    for (int c = 1; c < 256; c++) {
+      count[c] += count[c - 1];
+    }
+    for (int i = n - 1; i >= 0; i--) {
+      sa[--count[rank[i]]] = i;
+    }
+    int classes = 256;
+
+    for (int k = 1; k < n; k <<= 1) {
+      // order by the second half: suffixes shorter than k first, then by the sa of i + k
+      int p = 0;
+      for (int i = n - k; i < n; i++) {
+        tmp[p++] = i;
+      }
+      for (int j = 0; j < n; j++) {
+        if (sa[j] >= k) {
+          tmp[p++] = sa[j] - k;
+        }
+      }
+      // stable counting sort by the first half
+      Arrays.fill(count, 0, classes, 0);
+      for (int i = 0; i < n; i++) {
+        count[rank[i]]++;
+      }
+      for (int c = 1; c < classes; c++) {
+        count[c] += count[c - 1];
+      }
+      for (int i = n - 1; i >= 0; i--) {
+        sa[--count[rank[tmp[i]]]] = tmp[i];
+      }
+
+      tmp[sa[0]] = 0;
+      classes = 1;
+      for (int i = 1; i < n; i++) {
+        int prev = sa[i - 1], cur = sa[i];
+        int prevSecond = prev + k < n ? rank[prev + k] : -1;
+        int curSecond = cur + k < n ? rank[cur + k] : -1;
+        if (rank[prev] != rank[cur] || prevSecond != curSecond) {
+          classes++;
+        }
+        tmp[cur] = classes - 1;
+      }
+      int[] swap = rank;
+      rank = tmp;
+      tmp = swap;
+      if (classes == n) {
+        break;
+      }
+    }
+    return sa;
+  }
+
+  // Kasai: walk suffixes in text order, the common prefix shrinks by at most one each step
+  static int[] buildLcp(byte[] s, int[] sa) {
+    int n = s.length;
+    int[] rank = new int[n];
+    int[] lcp = new int[n];
+    for (int i = 0; i < n; i++) {
+      rank[sa[i]] = i;
+    }
+    int h = 0;
+    for (int i = 0; i < n; i++) {
+      if (rank[i] > 0) {
+        int j = sa[rank[i] - 1];
+        while (i + h < n && j + h < n && s[i + h] == s[j + h]) {
+          h++;
+        }
+        lcp[rank[i]] = h;
+        if (h > 0) {
+          h--;
+        }
+      } else {
+        h = 0;
+      }
+    }
+    return lcp;
+  }
+
+  /**
+   * Layout, little-endian whatever the platform: magic, n, the text padded to 4 bytes, then
+   * n ints of SA and n ints of LCP.
+   */
+  public void save(Path file) throws IOException {
+    long textBytes = (n + 3L) & ~3L;
+    long size = HEADER_BYTES + textBytes + 8L * n;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      out.order(ByteOrder.LITTLE_ENDIAN);
+      out.putInt(MAGIC);
+      out.putInt(n);
+      for (int i = 0; i < n; i++) {
+        out.put(text.get(i));
+      }
+      out.position((int) (HEADER_BYTES + textBytes));
+      IntBuffer ints = out.asIntBuffer();
+      for (int i = 0; i < n; i++) {
+        ints.put(sa.get(i));
+      }
+      for (int i = 0; i < n; i++) {
+        ints.put(lcp.get(i));
+      }
+      out.force();
+    }
+  }
+
+  /**
+   * Map a saved index; nothing is read until queries touch it.
+   */
+  public static SuffixArray load(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      in.order(ByteOrder.LITTLE_ENDIAN);
+      if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+        throw new IOException("not a suffix array index: " + file);
+      }
+      int n = in.getInt();
+      long textBytes = (n + 3L) & ~3L;
+      if (in.capacity() != HEADER_BYTES + textBytes + 8L * n) {
+        throw new IOException("truncated suffix array index: " + file);
+      }
+      ByteBuffer text = in.slice(HEADER_BYTES, n);
+      IntBuffer ints = in.slice((int) (HEADER_BYTES + textBytes), 8 * n)
+          .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+      IntBuffer sa = ints.slice(0, n);
+      IntBuffer lcp = ints.slice(n, n);
+      return new SuffixArray(text, sa, lcp, n);
+    }
+  }
+
+
+  public static void main(String[] args) throws IOException {
+    SuffixArray banana = new SuffixArray("banana");
+    System.out.println("count(ana) = " + banana.count("ana")
+        + ", locate(ana) = " + Arrays.toString(banana.locate("ana"))
+        + ", longest repeat = "
+        + new String(banana.longestRepeatedSubstring(), StandardCharsets.UTF_8));
+
+    Random random = new Random(11);
+    byte[] corpus = new byte[8 << 20];
+    for (int i = 0; i < corpus.length; i++) {
+      corpus[i] = (byte) ('a' + random.nextInt(4));
+    }
+    long start = System.nanoTime();
+    SuffixArray index = new SuffixArray(corpus);
+    System.out.printf("built %d MB index in %.0f ms%n", corpus.length >> 20,
+        (System.nanoTime() - start) / 1e6);
+
+    Path file = Files.createTempFile("suffix", ".idx");
+    try {
+      index.save(file);
+      start = System.nanoTime();
+      SuffixArray mapped = SuffixArray.load(file);
+      System.out.printf("loaded in %.2f ms%n", (System.nanoTime() - start) / 1e6);
+
+      byte[][] queries = new byte[100_000][];
+      for (int q = 0; q < queries.length; q++) {
+        int at = random.nextInt(corpus.length - 12);
+        queries[q] = Arrays.copyOfRange(corpus, at, at + 12);
+      }
+      for (SuffixArray sa : new SuffixArray[]{index, mapped}) {
+        long total = 0;
+        start = System.nanoTime();
+        for (byte[] query : queries) {
+          total += sa.count(query);
+        }
+        System.out.printf("%s: %.0f ns/count query (%d hits)%n", sa == index ? "heap  " : "mapped",
+            (double) (System.nanoTime() - start) / queries.length, total);
+      }
+      System.out.println("longest repeat length: " + mapped.longestRepeatedSubstring().length);
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,285 @@
+package graph.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Prepared dictionary for repeated {@link StartToEndTransform} word-ladder queries. Words
+ * get int ids once. Words that differ in one position share a wildcard bucket ("h*t" holds
+ * hot, hit, hat), and buckets are stored in CSR form: one int[] of member ids with an
+ * offsets array. wayladderLength builds 26 * L Strings per visited word. A query here
+ * instead runs bidirectional BFS over int frontiers, with BitSets for visited words and
+ * buckets, so the search itself allocates nothing.
+ *
+ * The per-query scratch arrays are kept per thread, so one index can serve many threads.
+ */
+public class WordLadderIndex {
+
+  final String[] words;
+  final HashMap<String, Integer> ids;
+  final HashMap<String, Integer> bucketIds;
+
+  // CSR: members of bucket b are bucketWords[bucketStart[b] .. bucketStart[b + 1])
+  final int[] bucketStart;
+  final int[] bucketWords;
+  // CSR: buckets of word w are wordBuckets[wordStart[w] .. wordStart[w + 1])
+  final int[] wordStart;
+  final int[] wordBuckets;
+
+  private final ThreadLocal<Scratch> scratch;
+
+  public WordLadderIndex(Set<String> dictionary) {
+    words = dictionary.toArray(new String[0]);
+    Arrays.sort(words); // stable ids for the same dictionary
+    ids = new HashMap<>(words.length * 2);
+    for (int i = 0; i < words.length; i++) {
+      ids.put(words[i], i);
+    }
+
+    wordStart = new int[words.length + 1];
+    for (int w = 0; w < words.length; w++) {
+      wordStart[w + 1] = wordStart[w] + words[w].length();
+    }
+    wordBuckets = new int[wordStart[words.length]];
+    bucketIds = new HashMap<>();
+    int[] sizes = new int[16];
+    for (int w = 0; w < words.length; w++) {
+      char[] chs = words[w].toCharArray();
+      for (int i = 0; i < chs.length; i++) {
+        char old = chs[i];
+        chs[i] = '*';
+        Integer bucket = bucketIds.get(String.valueOf(chs));
+        if (bucket == null) {
+          bucket = bucketIds.size();
+          bucketIds.put(String.valueOf(chs), bucket);
+          if (bucket == sizes.length) {
+            sizes = Arrays.copyOf(sizes, bucket * 2);
+          }
+        }
+        sizes[bucket]++;
+        wordBuckets[wordStart[w] + i] = bucket;
+        chs[i] = old;
+      }
+    }
+
+    int buckets = bucketIds.size();
+    bucketStart = new int[buckets + 1];
+    for (int b = 0; b < buckets; b++) {
+      bucketStart[b + 1] = bucketStart[b] + sizes[b];
+    }
+    bucketWords = new int[bucketStart[buckets]];
+    int[] fill = Arrays.copyOf(bucketStart, buckets);
+    for (int w = 0; w < words.length; w++) {
+      for (int k = wordStart[w]; k < wordStart[w + 1]; k++) {
+        bucketWords[fill[wordBuckets[k]]++] = w;
+      }
+    }
+
+    scratch = ThreadLocal.withInitial(() -> new Scratch(words.length, buckets));
+  }
+
+  /**
+   * Number of words in the shortest transformation sequence from beginWord to endWord,
+   * counting both ends, or 0 if there is none. endWord must be in the dictionary;
+   * beginWord need not be.
+   */
+  public int ladderLength(String beginWord, String endWord) {
+    Integer end = ids.get(endWord);
+    if (end == null) {
+      return 0;
+    }
+    if (beginWord.equals(endWord)) {
+      return 1;
+    }
+    Scratch s = scratch.get();
+    s.clear();
+
+    Side a = s.begin;
+    Side b = s.end;
+    Integer begin = ids.get(beginWord);
+    if (begin != null) {
+      a.add(begin, 1);
+    } else {
+      // a start outside the dictionary is expanded once through its own buckets
+      char[] chs = beginWord.toCharArray();
+      for (int i = 0; i < chs.length; i++) {
+        char old = chs[i];
+        chs[i] = '*';
+        Integer bucket = bucketIds.get(String.valueOf(chs));
+        chs[i] = old;
+        if (bucket != null && !a.expanded.get(bucket)) {
+          a.expanded.set(bucket);
+          for (int k = bucketStart[bucket]; k < bucketStart[bucket + 1]; k++) {
+            int v = bucketWords[k];
+            if (v == end) {
+              return 2;
+            }
+            if (!a.visited.get(v)) {
+              a.add(v, 2);
+            }
+          }
+        }
+      }
+    }
+    b.add(end, 1);
+
+    while (a.size > 0 && b.size > 0) {
+      // always expand the smaller frontier
+      if (a.size > b.size) {
+        Side t = a;
+        a = b;
+        b = t;
+      }
+      int best = expandLevel(a, b);
+      if (best > 0) {
+        return best;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Replace a's frontier with the next level, returning the shortest length through a
+   * word the other side has already seen, or 0 if the sides did not meet.
+   */
+  private int expandLevel(Side a, Side b) {
+    int best = 0;
+    a.nextSize = 0;
+    for (int f = 0; f < a.size; f++) {
+      int w = a.frontier[f];
+      int depth = a.dist[w];
+      for (int k = wordStart[w]; k < wordStart[w + 1]; k++) {
+        int bucket = wordBuckets[k];
+        if (a.expanded.get(bucket)) {
+          continue; // every member was reached already
+        }
+        a.expanded.set(bucket);
+        for (int m = bucketStart[bucket]; m < bucketStart[bucket + 1]; m++) {
+          int v = bucketWords[m];
+          if (b.visited.get(v)) {
+            int length = depth + b.dist[v];
+            if (best == 0 || length < best) {
+              best = length;
+            }
+          }
+          if (!a.visited.get(v)) {
+            a.visited.set(v);
+            a.dist[v] = depth + 1;
+            a.next[a.nextSize++] = v;
+          }
+        }
+      }
+    }
+    a.swap();
+    return best;
+  }
+
+  public int size() {
+    return words.length;
+  }
+
+  static final class Side {
+    final BitSet visited;
+    final BitSet expanded;
+    final int[] dist;
+    int[] frontier;
+    int[] next;
+    int size;
+    int nextSize;
+
+    Side(int words, int buckets) {
+      visited = new BitSet(words);
+      expanded = new BitSet(buckets);
+      dist = new int[words];
+      frontier = new int[words];
+      next = new int[words];
+    }
+
+    void add(int w, int depth) {
+      visited.set(w);
+      dist[w] = depth;
+      frontier[size++] = w;
+    }
+
+    void swap() {
+      int[] t = frontier;
+      frontier = next;
+      next = t;
+      size = nextSize;
+    }
+
+    void clear() {
+      visited.clear();
+      expanded.clear();
+      size = 0;
+      nextSize = 0;
+    }
+  }
+
+  static final class Scratch {
+    final Side begin;
+    final Side end;
+
+    Scratch(int words, int buckets) {
+      begin = new Side(words, buckets);
+      end = new Side(words, buckets);
+    }
+
+    void clear() {
+      begin.clear();
+      end.clear();
+    }
+  }
+
+
+  public static void main(String[] arr) {
+    WordLadderIndex demo = new WordLadderIndex(new HashSet<>(Arrays.asList(
+        "ait", "oit", "oij", "ooj", "oop", "hog", "pog", "hot", "dot", "dog", "lot", "log", "cog")));
+    System.out.println(demo.ladderLength("hit", "cog"));
+
+    // dense dictionary: half of all 5-letter words over a..j
+    Random random = new Random(9);
+    Set<String> dictionary = new HashSet<>();
+    char[] chs = new char[5];
+    for (int n = 0; n < 100_000; n++) {
+      int x = n;
+      for (int i = 0; i < 5; i++) {
+        chs[i] = (char) ('a' + x % 10);
+        x /= 10;
+      }
+      if (random.nextBoolean()) {
+        dictionary.add(new String(chs));
+      }
+    }
+    String[] words = dictionary.toArray(new String[0]);
+
+    long start = System.nanoTime();
+    WordLadderIndex index = new WordLadderIndex(dictionary);
+    System.out.printf("indexed %d words in %.0f ms%n", index.size(), (System.nanoTime() - start) / 1e6);
+
+    int queries = 2000;
+    String[][] pairs = new String[queries][];
+    for (int q = 0; q < queries; q++) {
+      pairs[q] = new String[]{words[random.nextInt(words.length)], words[random.nextInt(words.length)]};
+    }
+    for (int round = 0; round < 3; round++) {
+      long sumOld = 0, sumNew = 0;
+      start = System.nanoTime();
+      for (String[] pair : pairs) {
+        sumOld += StartToEndTransform.wayladderLength(pair[0], pair[1], dictionary);
+      }
+      long oldNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (String[] pair : pairs) {
+        sumNew += index.ladderLength(pair[0], pair[1]);
+      }
+      long newNanos = System.nanoTime() - start;
+      System.out.printf("wayladderLength %.1f us, WordLadderIndex %.1f us per query (sum %d/%d)%n",
+          oldNanos / 1e3 / queries, newNanos / 1e3 / queries, sumOld, sumNew);
+    }
+  }
+}
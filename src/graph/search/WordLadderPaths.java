@@ -0,0 +1,345 @@
+package graph.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+//https://leetcode.com/problems/word-ladder-ii/
+/**
+ * Transformation sequences on top of a {@link WordLadderIndex}, where StartToEndTransform
+ * only gives the length. shortestPath records one int parent per word during BFS.
+ * allShortestPaths (Word Ladder II) finds the layers from beginWord, then walks back from
+ * endWord to keep only the words on some shortest path. It links them into a layered DAG
+ * in CSR form and streams the paths through an Iterator with an explicit DFS stack. Memory
+ * grows with the size of the DAG, never with the number of paths, which can be exponential.
+ */
+public class WordLadderPaths {
+
+  private final WordLadderIndex index;
+
+  public WordLadderPaths(WordLadderIndex index) {
+    this.index = index;
+  }
+
+  /**
+   * One shortest sequence from beginWord to endWord, both included, or an empty list.
+   */
+  public List<String> shortestPath(String beginWord, String endWord) {
+    Layers layers = bfs(beginWord, endWord);
+    if (layers == null) {
+      return Collections.emptyList();
+    }
+    String[] path = new String[layers.length];
+    int w = layers.end;
+    for (int i = path.length - 1; i >= 0; i--) {
+      path[i] = name(w, beginWord);
+      w = layers.parent[w];
+    }
+    return Arrays.asList(path);
+  }
+
+  /**
+   * Every shortest sequence from beginWord to endWord, produced lazily one at a time.
+   */
+  public Iterator<List<String>> allShortestPaths(String beginWord, String endWord) {
+    Layers layers = bfs(beginWord, endWord);
+    if (layers == null) {
+      return Collections.emptyIterator();
+    }
+    return new PathIterator(buildDag(layers), layers, beginWord);
+  }
+
+  /**
+   * Count the shortest sequences without enumerating them, by summing path counts per layer.
+   */
+  public long countShortestPaths(String beginWord, String endWord) {
+    Layers layers = bfs(beginWord, endWord);
+    if (layers == null) {
+      return 0;
+    }
+    Dag dag = buildDag(layers);
+    // walk the DAG in reverse BFS order, paths(u) = sum of paths(child)
+    long[] paths = new long[layers.dist.length];
+    paths[layers.end] = 1;
+    for (int i = layers.order.length - 1; i >= 0; i--) {
+      int u = layers.order[i];
+      for (int k = dag.start[u]; k < dag.start[u + 1]; k++) {
+        paths[u] = Math.addExact(paths[u], paths[dag.children[k]]);
+      }
+    }
+    return paths[layers.begin];
+  }
+
+  private String name(int w, String beginWord) {
+    return w == index.words.length ? beginWord : index.words[w];
+  }
+
+  static final class Layers {
+    int begin;       // words.length stands for a beginWord outside the dictionary
+    int end;
+    int length;      // words on a shortest path
+    int[] dist;      // 1 for beginWord, 0 for unreached
+    int[] parent;
+    int[] order;     // reached words in BFS order, up to the end's layer
+  }
+
+  // BFS from beginWord until endWord's layer is complete; null if unreachable.
+  private Layers bfs(String beginWord, String endWord) {
+    Integer endId = index.ids.get(endWord);
+    if (endId == null) {
+      return null;
+    }
+    int n = index.words.length;
+    Integer beginId = index.ids.get(beginWord);
+    int begin = beginId != null ? beginId : n;
+    int[] beginBuckets = beginId != null
+        ? Arrays.copyOfRange(index.wordBuckets, index.wordStart[begin], index.wordStart[begin + 1])
+        : bucketsOf(beginWord);
+
+    Layers layers = new Layers();
+    layers.begin = begin;
+    layers.end = endId;
+    layers.dist = new int[n + 1];
+    layers.parent = new int[n + 1];
+    int[] queue = new int[n + 1];
+    int head = 0, tail = 0;
+    BitSet expanded = new BitSet();
+
+    queue[tail++] = begin;
+    layers.dist[begin] = 1;
+    layers.parent[begin] = -1;
+    while (head < tail) {
+      int u = queue[head];
+      if (layers.dist[endId] != 0 && layers.dist[u] >= layers.dist[endId]) {
+        break; // end's layer is complete
+      }
+      head++;
+      int from = u == n ? 0 : index.wordStart[u];
+      int to = u == n ? beginBuckets.length : index.wordStart[u + 1];
+      for (int k = from; k < to; k++) {
+        int bucket = u == n ? beginBuckets[k] : index.wordBuckets[k];
+        if (expanded.get(bucket)) {
+          continue;
+        }
+        expanded.set(bucket);
+        for (int m = index.bucketStart[bucket]; m < index.bucketStart[bucket + 1]; m++) {
+          int v = index.bucketWords[m];
+          if (layers.dist[v] == 0 && v != begin) {
+            layers.dist[v] = layers.dist[u] + 1;
+            layers.parent[v] = u;
+            queue[tail++] = v;
+          }
+        }
+      }
+    }
+    if (layers.dist[endId] == 0) {
+      return null;
+    }
+    layers.length = layers.dist[endId];
+    layers.order = Arrays.copyOf(queue, tail);
+    return layers;
+  }
+
+  private int[] bucketsOf(String word) {
+    char[] chs = word.toCharArray();
+    int[] buckets = new int[chs.length];
+    int count = 0;
+    for (int i = 0; i < chs.length; i++) {
+      char old = chs[i];
+      chs[i] = '*';
+      Integer bucket = index.bucketIds.get(String.valueOf(chs));
+      chs[i] = old;
+      if (bucket != null) {
+        buckets[count++] = bucket;
+      }
+    }
+    return Arrays.copyOf(buckets, count);
+  }
+
+  static final class Dag {
+    int[] start;     // CSR offsets by parent word
+    int[] children;
+  }
+
+  /**
+   * Walk back from the end one layer at a time, keeping the edges u -> v with
+   * dist[u] + 1 == dist[v] where v is already known to lie on a shortest path.
+   */
+  private Dag buildDag(Layers layers) {
+    int n = index.words.length;
+    int[] dist = layers.dist;
+    BitSet onPath = new BitSet(n + 1);
+    int[] edgeFrom = new int[16];
+    int[] edgeTo = new int[16];
+    int edges = 0;
+
+    int[] level = {layers.end};
+    int levelSize = 1;
+    onPath.set(layers.end);
+    int[] next = new int[16];
+    while (levelSize > 0 && dist[level[0]] > 1) {
+      int nextSize = 0;
+      for (int i = 0; i < levelSize; i++) {
+        int v = level[i];
+        if (dist[v] == 2) {
+          // every word in the second layer was reached straight from beginWord
+          if (edges == edgeFrom.length) {
+            edgeFrom = Arrays.copyOf(edgeFrom, edges * 2);
+            edgeTo = Arrays.copyOf(edgeTo, edges * 2);
+          }
+          edgeFrom[edges] = layers.begin;
+          edgeTo[edges++] = v;
+          if (!onPath.get(layers.begin)) {
+            onPath.set(layers.begin);
+            if (nextSize == next.length) {
+              next = Arrays.copyOf(next, nextSize * 2);
+            }
+            next[nextSize++] = layers.begin;
+          }
+          continue;
+        }
+        for (int k = index.wordStart[v]; k < index.wordStart[v + 1]; k++) {
+          int bucket = index.wordBuckets[k];
+          for (int m = index.bucketStart[bucket]; m < index.bucketStart[bucket + 1]; m++) {
+            int u = index.bucketWords[m];
+            if (dist[u] + 1 != dist[v] || dist[u] == 0) {
+              continue;
+            }
+            if (edges == edgeFrom.length) {
+              edgeFrom = Arrays.copyOf(edgeFrom, edges * 2);
+              edgeTo = Arrays.copyOf(edgeTo, edges * 2);
+            }
+            edgeFrom[edges] = u;
+            edgeTo[edges++] = v;
+            if (!onPath.get(u)) {
+              onPath.set(u);
+              if (nextSize == next.length) {
+                next = Arrays.copyOf(next, nextSize * 2);
+              }
+              next[nextSize++] = u;
+            }
+          }
+        }
+      }
+      int[] t = level;
+      level = next;
+      next = t.length >= 16 ? t : new int[16];
+      levelSize = nextSize;
+    }
+
+    Dag dag = new Dag();
+    dag.start = new int[n + 2];
+    for (int e = 0; e < edges; e++) {
+      dag.start[edgeFrom[e] + 1]++;
+    }
+    for (int i = 0; i <= n; i++) {
+      dag.start[i + 1] += dag.start[i];
+    }
+    dag.children = new int[edges];
+    int[] fill = Arrays.copyOf(dag.start, n + 1);
+    for (int e = 0; e < edges; e++) {
+      dag.children[fill[edgeFrom[e]]++] = edgeTo[e];
+    }
+    return dag;
+  }
+
+  /**
+   * DFS over the DAG with an explicit stack; each next() advances to the following leaf.
+   */
+  final class PathIterator implements Iterator<List<String>> {
+    private final Dag dag;
+    private final String beginWord;
+    private final int[] path;
+    private final int[] cursor;
+    private int depth;
+    private boolean ready;
+
+    PathIterator(Dag dag, Layers layers, String beginWord) {
+      this.dag = dag;
+      this.beginWord = beginWord;
+      this.path = new int[layers.length];
+      this.cursor = new int[layers.length];
+      path[0] = layers.begin;
+      cursor[0] = dag.start[layers.begin];
+      depth = 0;
+      ready = layers.length == 1 || advance();
+    }
+
+    // move to the next complete path, false when exhausted
+    private boolean advance() {
+      while (depth >= 0) {
+        int u = path[depth];
+        if (depth == path.length - 1) {
+          depth--; // a leaf was consumed, resume its parent
+          continue;
+        }
+        if (cursor[depth] == dag.start[u + 1]) {
+          depth--;
+          continue;
+        }
+        int v = dag.children[cursor[depth]++];
+        depth++;
+        path[depth] = v;
+        cursor[depth] = dag.start[v];
+        if (depth == path.length - 1) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return ready;
+    }
+
+    @Override
+    public List<String> next() {
+      if (!ready) {
+        throw new NoSuchElementException();
+      }
+      List<String> result = new ArrayList<>(path.length);
+      for (int w : path) {
+        result.add(name(w, beginWord));
+      }
+      ready = path.length > 1 && advance();
+      return result;
+    }
+  }
+
+
+  public static void main(String[] arr) {
+    WordLadderIndex demo = new WordLadderIndex(new HashSet<>(Arrays.asList(
+        "hot", "dot", "dog", "lot", "log", "cog")));
+    WordLadderPaths paths = new WordLadderPaths(demo);
+    System.out.println(paths.shortestPath("hit", "cog"));
+    paths.allShortestPaths("hit", "cog").forEachRemaining(System.out::println);
+
+    // every 9-letter word over {a, b}: flipping the 9 letters in any order is a shortest path
+    Set<String> dictionary = new HashSet<>();
+    char[] chs = new char[9];
+    for (int n = 0; n < 1 << chs.length; n++) {
+      for (int i = 0; i < chs.length; i++) {
+        chs[i] = (n >> i & 1) == 0 ? 'a' : 'b';
+      }
+      dictionary.add(new String(chs));
+    }
+    WordLadderPaths many = new WordLadderPaths(new WordLadderIndex(dictionary));
+    System.out.println("shortest paths aaaaaaaaa -> bbbbbbbbb: "
+        + many.countShortestPaths("aaaaaaaaa", "bbbbbbbbb"));
+    long streamed = 0;
+    long start = System.nanoTime();
+    Iterator<List<String>> it = many.allShortestPaths("aaaaaaaaa", "bbbbbbbbb");
+    while (it.hasNext()) {
+      it.next();
+      streamed++;
+    }
+    System.out.printf("streamed %d paths in %.0f ms%n", streamed, (System.nanoTime() - start) / 1e6);
+  }
+}
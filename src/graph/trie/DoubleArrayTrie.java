@@ -0,0 +1,436 @@
+package graph.trie;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compact form of the {@link Trie} used by WordSearch2, as two parallel int arrays. The
+ * child of state s on letter c is t = base[s] + code(c), and it exists only when
+ * check[t] == s. Code 0 marks the end of a word. Its slot holds the word id, as
+ * base = -(id + 1), so a lookup never leaves the two arrays. A pointer Trie costs a
+ * 26-slot array per node. Here a node costs about one slot per real edge.
+ *
+ * The trie is immutable once built. Traversal goes through root, child and wordId, the
+ * same steps getValue takes over Trie.next and Trie.value.
+ *
+ * Every link is a slot index, never an address, so the arrays can be written out as they
+ * are. {@link #save} writes them to one file, and {@link #load} maps that file read-only.
+ * A loaded trie answers lookups and board searches straight from the mapping: no parsing,
+ * and nothing on the heap that grows with the dictionary.
+ */
+public class DoubleArrayTrie {
+
+  public static final int NONE = -1;
+
+  private static final int FREE = -1;
+  private static final int END = 0;   // code of the end-of-word slot, letters are 1..26
+  private static final int MAGIC = 0x44415431; // "DAT1"
+  private static final int HEADER_BYTES = 16;
+
+  private final IntBuffer base;
+  private final IntBuffer check;
+  private final int slots;           // highest used slot + 1
+  // word w is letters[wordStart[w] .. wordStart[w + 1])
+  private final IntBuffer wordStart;
+  private final ByteBuffer letters;
+  private final int count;
+
+  /**
+   * Build from lowercase a..z words; duplicates are dropped and ids follow sorted order.
+   */
+  public DoubleArrayTrie(String[] dictionary) {
+    String[] sorted = dictionary.clone();
+    Arrays.sort(sorted);
+    int n = 0;
+    for (String word : sorted) {
+      for (int i = 0; i < word.length(); i++) {
+        char ch = word.charAt(i);
+        if (ch < 'a' || ch > 'z') {
+          throw new IllegalArgumentException("not a lowercase word: " + word);
+        }
+      }
+      if (n == 0 || !sorted[n - 1].equals(word)) {
+        sorted[n++] = word;
+      }
+    }
+    String[] words = Arrays.copyOf(sorted, n);
+
+    Builder builder = new Builder(words);
+    this.slots = builder.slots;
+    this.base = IntBuffer.wrap(Arrays.copyOf(builder.base, slots));
+    this.check = IntBuffer.wrap(Arrays.copyOf(builder.check, slots));
+    this.count = n;
+    int[] starts = new int[n + 1];
+    for (int w = 0; w < n; w++) {
+      starts[w + 1] = starts[w] + words[w].length();
+    }
+    byte[] bytes = new byte[starts[n]];
+    for (int w = 0; w < n; w++) {
+      for (int i = 0; i < words[w].length(); i++) {
+        bytes[starts[w] + i] = (byte) words[w].charAt(i);
+      }
+    }
+    this.wordStart = IntBuffer.wrap(starts);
+    this.letters = ByteBuffer.wrap(bytes);
+  }
+
+  private DoubleArrayTrie(IntBuffer base, IntBuffer check, int slots, IntBuffer wordStart,
+      ByteBuffer letters, int count) {
+    this.base = base;
+    this.check = check;
+    this.slots = slots;
+    this.wordStart = wordStart;
+    this.letters = letters;
+    this.count = count;
+  }
+
+  public int root() {
+    return 0;
+  }
+
+  /**
+   * State reached from state on ch, or NONE. Any character outside a..z has no child.
+   */
+  public int child(int state, char ch) {
+    int code = ch - 'a' + 1;
+    if (code < 1 || code > 26) {
+      return NONE;
+    }
+    int t = base.get(state) + code;
+    return t < slots && check.get(t) == state ? t : NONE;
+  }
+
+  /**
+   * Id of the word ending at state, or NONE.
+   */
+  public int wordId(int state) {
+    int t = base.get(state) + END;
+    return t < slots && check.get(t) == state ? -base.get(t) - 1 : NONE;
+  }
+
+  public String word(int id) {
+    int from = wordStart.get(id);
+    byte[] bytes = new byte[wordStart.get(id + 1) - from];
+    letters.get(from, bytes);
+    return new String(bytes, StandardCharsets.US_ASCII);
+  }
+
+  public boolean contains(String word) {
+    int state = root();
+    for (int i = 0; i < word.length() && state != NONE; i++) {
+      state = child(state, word.charAt(i));
+    }
+    return state != NONE && wordId(state) != NONE;
+  }
+
+  /**
+   * Number of distinct words.
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Bytes held by the base and check arrays, not counting the word strings.
+   */
+  public long arrayBytes() {
+    return 8L * slots;
+  }
+
+  /**
+   * Layout, little-endian whatever the platform: magic, slots, words, letter bytes, then slots
+   * ints of base, slots ints of check, words + 1 ints of word offsets and the letters of every
+   * word back to back.
+   */
+  public void save(Path file) throws IOException {
+    int letterBytes = wordStart.get(count);
+    long size = HEADER_BYTES + 4L * (2L * slots + count + 1) + letterBytes;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      out.order(ByteOrder.LITTLE_ENDIAN);
+      out.putInt(MAGIC);
+      out.putInt(slots);
+      out.putInt(count);
+      out.putInt(letterBytes);
+      IntBuffer ints = out.asIntBuffer();
+      ints.put(base.duplicate().rewind());
+      ints.put(check.duplicate().rewind());
+      ints.put(wordStart.duplicate().rewind());
+      out.position(HEADER_BYTES + 4 * (2 * slots + count + 1));
+      out.put(letters.duplicate().rewind());
+      out.force();
+    }
+  }
+
+  /**
+   * Map a saved trie; pages are read only as lookups touch them.
+   */
+  public static DoubleArrayTrie load(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      in.order(ByteOrder.LITTLE_ENDIAN);
+      if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+        throw new IOException("not a double-array trie: " + file);
+      }
+      int slots = in.getInt();
+      int count = in.getInt();
+      int letterBytes = in.getInt();
+      long intsBytes = 4L * (2L * slots + count + 1);
+      if (in.capacity() != HEADER_BYTES + intsBytes + letterBytes) {
+        throw new IOException("truncated double-array trie: " + file);
+      }
+      IntBuffer ints = in.slice(HEADER_BYTES, (int) intsBytes)
+          .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+      return new DoubleArrayTrie(ints.slice(0, slots), ints.slice(slots, slots),
+          slots, ints.slice(2 * slots, count + 1),
+          in.slice((int) (HEADER_BYTES + intsBytes), letterBytes), count);
+    }
+  }
+
+  // Darts-style construction into growable arrays; the result is copied out trimmed.
+  private static final class Builder {
+    private final String[] words;
+    private int[] base;
+    private int[] check;
+    private int slots;
+    private final BitSet usedBases = new BitSet();
+    private int nextCheckPos;
+
+    Builder(String[] words) {
+      this.words = words;
+      int capacity = Math.max(64, words.length * 4);
+      base = new int[capacity];
+      check = new int[capacity];
+      Arrays.fill(check, FREE);
+      check[0] = 0;   // the root
+      base[0] = 1;
+      slots = 1;
+      if (words.length > 0) {
+        insert(0, 0, 0, words.length);
+      }
+    }
+
+    private static int code(String word, int depth) {
+      return depth == word.length() ? END : word.charAt(depth) - 'a' + 1;
+    }
+
+    // words[lo, hi) share their first depth letters and all pass through state
+    private void insert(int state, int depth, int lo, int hi) {
+      int[] codes = new int[27];
+      int[] starts = new int[28];
+      int count = 0;
+      for (int i = lo; i < hi; ) {
+        int c = code(words[i], depth);
+        codes[count] = c;
+        starts[count++] = i;
+        do {
+          i++;
+        } while (i < hi && code(words[i], depth) == c);
+      }
+      starts[count] = hi;
+
+      int b = findBase(codes, count);
+      base[state] = b;
+      // claim every child slot before going deeper, so the subtrees cannot take them
+      for (int k = 0; k < count; k++) {
+        check[b + codes[k]] = state;
+      }
+      slots = Math.max(slots, b + codes[count - 1] + 1);
+      for (int k = 0; k < count; k++) {
+        int t = b + codes[k];
+        if (codes[k] == END) {
+          base[t] = -starts[k] - 1;
+        } else {
+          insert(t, depth + 1, starts[k], starts[k + 1]);
+        }
+      }
+    }
+
+    // First base where every code lands on a free slot, skipping past dense regions.
+    private int findBase(int[] codes, int count) {
+      int pos = Math.max(codes[0] + 1, nextCheckPos) - 1;
+      int occupied = 0;
+      boolean first = true;
+      int b;
+      search:
+      while (true) {
+        pos++;
+        ensureCapacity(pos + 1);
+        if (check[pos] != FREE) {
+          occupied++;
+          continue;
+        } else if (first) {
+          nextCheckPos = pos;
+          first = false;
+        }
+        b = pos - codes[0];
+        ensureCapacity(b + codes[count - 1] + 1);
+        if (usedBases.get(b)) {
+          continue;
+        }
+        for (int k = 1; k < count; k++) {
+          if (check[b + codes[k]] != FREE) {
+            continue search;
+          }
+        }
+        break;
+      }
+      // once the scanned stretch is nearly full, later searches start after it
+      if (occupied >= 0.95 * (pos - nextCheckPos + 1)) {
+        nextCheckPos = pos;
+      }
+      usedBases.set(b);
+      return b;
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > check.length) {
+        int grown = Math.max(capacity, check.length + (check.length >> 1));
+        int old = check.length;
+        base = Arrays.copyOf(base, grown);
+        check = Arrays.copyOf(check, grown);
+        Arrays.fill(check, old, grown, FREE);
+      }
+    }
+  }
+
+
+  private static boolean contains(Trie root, String word) {
+    Trie p = root;
+    for (int i = 0; i < word.length() && p != null; i++) {
+      p = p.next[word.charAt(i) - 'a'];
+    }
+    return p != null && p.value != null;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  public static void main(String[] args) throws IOException {
+    DoubleArrayTrie demo = new DoubleArrayTrie(new String[]{"oath", "pea", "eat", "rain", "oat"});
+    System.out.println(demo.contains("oat") + " " + demo.contains("oa") + " " + demo.contains("rain"));
+
+    // words of 3..12 letters, skewed towards common letters so prefixes are shared
+    Random random = new Random(3);
+    int n = 500_000;
+    String[] words = new String[n];
+    char[] chs = new char[12];
+    for (int w = 0; w < n; w++) {
+      int length = 3 + random.nextInt(10);
+      for (int i = 0; i < length; i++) {
+        int r = random.nextInt(26 * 26);
+        chs[i] = (char) ('a' + (int) Math.sqrt(r));
+      }
+      words[w] = new String(chs, 0, length);
+    }
+    String[] queries = new String[1_000_000];
+    for (int q = 0; q < queries.length; q++) {
+      String word = words[random.nextInt(n)];
+      // every other query is a prefix, which is usually not a word
+      queries[q] = (q & 1) == 0 ? word : word.substring(0, word.length() - 1);
+    }
+
+    long before = usedHeap();
+    Trie trie = Trie.of(words);
+    long trieBytes = usedHeap() - before;
+    before = usedHeap();
+    long start = System.nanoTime();
+    DoubleArrayTrie dat = new DoubleArrayTrie(words);
+    long buildNanos = System.nanoTime() - start;
+    long datBytes = usedHeap() - before;
+    System.out.printf("%d words: Trie %.0f bytes/word, DoubleArrayTrie %.0f bytes/word "
+            + "(%.0f in base/check, %d slots), built in %.0f ms%n", dat.size(),
+        (double) trieBytes / dat.size(), (double) datBytes / dat.size(),
+        (double) dat.arrayBytes() / dat.size(), dat.slots, buildNanos / 1e6);
+
+    for (int round = 0; round < 3; round++) {
+      int hitsTrie = 0, hitsDat = 0;
+      start = System.nanoTime();
+      for (String query : queries) {
+        hitsTrie += contains(trie, query) ? 1 : 0;
+      }
+      long trieNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (String query : queries) {
+        hitsDat += dat.contains(query) ? 1 : 0;
+      }
+      long datNanos = System.nanoTime() - start;
+      System.out.printf("lookup: Trie %.0f ns, DoubleArrayTrie %.0f ns (hits %d/%d)%n",
+          (double) trieNanos / queries.length, (double) datNanos / queries.length, hitsTrie, hitsDat);
+    }
+
+    List<String> found = new ArrayList<>();
+    char[][] board = {{'o','a','a','n'},{'e','t','a','e'},{'i','h','k','r'},{'i','f','l','v'}};
+    WordSearch2.findWords(board, demo, found);
+    System.out.println(found);
+
+    // startup: rebuilding from the word list against mapping a saved trie
+    Path file = Files.createTempFile("trie", ".dat");
+    try {
+      dat.save(file);
+      start = System.nanoTime();
+      Trie rebuilt = WordSearch2.createTree(words);
+      long createNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      DoubleArrayTrie mapped = DoubleArrayTrie.load(file);
+      long loadNanos = System.nanoTime() - start;
+      System.out.printf("createTree %.0f ms, load %.2f ms (%d MB file)%n", createNanos / 1e6,
+          loadNanos / 1e6, Files.size(file) >> 20);
+
+      for (int round = 0; round < 3; round++) {
+        int hitsHeap = 0, hitsMapped = 0;
+        start = System.nanoTime();
+        for (String query : queries) {
+          hitsHeap += dat.contains(query) ? 1 : 0;
+        }
+        long heapNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (String query : queries) {
+          hitsMapped += mapped.contains(query) ? 1 : 0;
+        }
+        long mappedNanos = System.nanoTime() - start;
+        System.out.printf("lookup: heap %.0f ns, mapped %.0f ns (hits %d/%d)%n",
+            (double) heapNanos / queries.length, (double) mappedNanos / queries.length,
+            hitsHeap, hitsMapped);
+      }
+
+      char[][] big = new char[100][100];
+      for (char[] row : big) {
+        for (int j = 0; j < row.length; j++) {
+          row[j] = (char) ('a' + (int) Math.sqrt(random.nextInt(26 * 26)));
+        }
+      }
+      List<String> fromTrie = new ArrayList<>();
+      List<String> fromMapped = new ArrayList<>();
+      start = System.nanoTime();
+      WordSearch2.findWords(big, rebuilt, fromTrie);
+      long trieNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      WordSearch2.findWords(big, mapped, fromMapped);
+      long mappedNanos = System.nanoTime() - start;
+      System.out.printf("100 x 100 board: Trie %.0f ms, mapped %.0f ms (%d/%d words)%n",
+          trieNanos / 1e6, mappedNanos / 1e6, fromTrie.size(), fromMapped.size());
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
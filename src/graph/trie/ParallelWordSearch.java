@@ -0,0 +1,142 @@
+package graph.trie;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Word Search II over a read-only board. WordSearch2.getValue marks its path by writing '#'
+ * into the board, so only one search can use a board at a time. Here each worker thread
+ * tracks its path in its own long[] bitset, one bit per cell, and the board is never written. The
+ * starting cells are split across a ForkJoinPool. A word is taken off its trie node with
+ * {@link Trie#claim}, so each word is reported once even when several tasks reach it.
+ *
+ * Claiming consumes the trie, as getValue's de-duplication does; build a fresh one per
+ * search. Which task finds a word first, and so the result order, can vary between runs.
+ */
+public class ParallelWordSearch {
+
+  private static final int SEQUENTIAL_THRESHOLD = 64;   // starting cells per leaf task
+
+  private final char[][] board;
+  private final int rows;
+  private final int cols;
+  // one path bitset per worker thread; backtracking always leaves it clear, and leaf tasks
+  // never join, so a thread never runs two searches on it at once
+  private final ThreadLocal<long[]> visited;
+
+  public ParallelWordSearch(char[][] board) {
+    this.board = board;
+    this.rows = board.length;
+    this.cols = rows == 0 ? 0 : board[0].length;
+    int words = (rows * cols + 63) >>> 6;
+    this.visited = ThreadLocal.withInitial(() -> new long[words]);
+  }
+
+  public List<String> findWords(Trie trie, ForkJoinPool pool) {
+    if (rows == 0 || cols == 0) {
+      return new ArrayList<>();
+    }
+    return pool.invoke(new ScanTask(trie, 0, rows * cols));
+  }
+
+  final class ScanTask extends RecursiveTask<List<String>> {
+    private static final long serialVersionUID = 1L;
+
+    private final Trie trie;
+    private final int from, to;
+
+    ScanTask(Trie trie, int from, int to) {
+      this.trie = trie;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected List<String> compute() {
+      if (to - from > SEQUENTIAL_THRESHOLD) {
+        int mid = (from + to) >>> 1;
+        ScanTask left = new ScanTask(trie, from, mid);
+        left.fork();
+        List<String> right = new ScanTask(trie, mid, to).compute();
+        List<String> found = left.join();
+        found.addAll(right);
+        return found;
+      }
+      List<String> found = new ArrayList<>();
+      long[] path = visited.get();
+      for (int cell = from; cell < to; cell++) {
+        search(cell / cols, cell % cols, trie, path, found);
+      }
+      return found;
+    }
+  }
+
+  private void search(int i, int j, Trie p, long[] visited, List<String> res) {
+    int cell = i * cols + j;
+    if ((visited[cell >>> 6] & (1L << cell)) != 0) return;
+    p = p.next[board[i][j] - 'a'];
+    if (p == null) return;
+    if (p.value != null) {
+      String word = p.claim();
+      if (word != null) {
+        res.add(word);
+      }
+    }
+
+    visited[cell >>> 6] |= 1L << cell;
+    if (i > 0) search(i - 1, j, p, visited, res);
+    if (j > 0) search(i, j - 1, p, visited, res);
+    if (i < rows - 1) search(i + 1, j, p, visited, res);
+    if (j < cols - 1) search(i, j + 1, p, visited, res);
+    visited[cell >>> 6] &= ~(1L << cell);
+  }
+
+
+  public static void main(String[] args) {
+    char[][] demo = {{'o','a','a','n'},{'e','t','a','e'},{'i','h','k','r'},{'i','f','l','v'}};
+    String[] demoWords = {"oath", "pea", "eat", "rain"};
+    System.out.println(new ParallelWordSearch(demo).findWords(Trie.of(demoWords), ForkJoinPool.commonPool()));
+
+    // 200 x 200 board and 50k words of 3..10 letters
+    Random random = new Random(21);
+    int n = 200;
+    char[][] board = new char[n][n];
+    for (char[] row : board) {
+      for (int j = 0; j < n; j++) {
+        row[j] = (char) ('a' + random.nextInt(26));
+      }
+    }
+    String[] words = new String[50_000];
+    for (int w = 0; w < words.length; w++) {
+      char[] chs = new char[3 + random.nextInt(8)];
+      for (int i = 0; i < chs.length; i++) {
+        chs[i] = (char) ('a' + random.nextInt(26));
+      }
+      words[w] = new String(chs);
+    }
+
+    ParallelWordSearch search = new ParallelWordSearch(board);
+    int[] threads = {1, 2, 4, 8};
+    for (int round = 0; round < 3; round++) {
+      List<String> sequential = new ArrayList<>();
+      Trie trie = Trie.of(words);
+      long start = System.nanoTime();
+      WordSearch2.findWords(board, trie, sequential);
+      System.out.printf("getValue %.1f ms (%d words)", (System.nanoTime() - start) / 1e6, sequential.size());
+      for (int t : threads) {
+        ForkJoinPool pool = new ForkJoinPool(t);
+        trie = Trie.of(words);
+        start = System.nanoTime();
+        List<String> found = search.findWords(trie, pool);
+        System.out.printf(", %d threads %.1f ms%s", t, (System.nanoTime() - start) / 1e6,
+            new HashSet<>(found).equals(new HashSet<>(sequential)) ? "" : " (MISMATCH)");
+        pool.shutdown();
+      }
+      System.out.println();
+    }
+  }
+}
@@ -0,0 +1,592 @@
+package graph.trie;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compressed (Patricia) trie over the UTF-8 bytes of each word, so any alphabet works:
+ * mixed case, accents, Cyrillic, CJK. The {@link Trie} in WordSearch2 indexes next[c - 'a']
+ * and fails on all of them. A run of single-child nodes is collapsed into one node, whose
+ * prefix holds the bytes between its parent's branch byte and its own.
+ *
+ * Nodes grow through four layouts as children are added, as in the Adaptive Radix Tree:
+ * up to 4 or 16 sorted key bytes with a parallel child array, then a 256-entry byte
+ * index into 48 child slots, then a direct 256-slot array. Memory follows the branching
+ * that is actually there instead of reserving a slot for every possible byte.
+ *
+ * Iteration is in UTF-8 byte order, which is also code point order.
+ */
+public class RadixTrie {
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private Node root = new Node4(EMPTY);
+  private int size;
+
+  /**
+   * Add word, returning false if it was already present.
+   */
+  public boolean add(String word) {
+    byte[] key = word.getBytes(StandardCharsets.UTF_8);
+    int before = size;
+    root = insert(root, key, 0, word);
+    return size != before;
+  }
+
+  public boolean contains(String word) {
+    Node node = descend(word.getBytes(StandardCharsets.UTF_8), true);
+    return node != null && node.value != null;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Longest word in the trie that is a prefix of text, or null if there is none.
+   */
+  public String longestPrefixOf(String text) {
+    byte[] key = text.getBytes(StandardCharsets.UTF_8);
+    Node node = root;
+    int depth = 0;
+    String best = null;
+    while (true) {
+      if (!node.prefixMatches(key, depth)) {
+        return best;
+      }
+      depth += node.prefix.length;
+      if (node.value != null) {
+        best = node.value;
+      }
+      if (depth == key.length) {
+        return best;
+      }
+      node = node.find(key[depth++] & 0xff);
+      if (node == null) {
+        return best;
+      }
+    }
+  }
+
+  /**
+   * Every word starting with prefix, in code point order, produced lazily.
+   */
+  public Iterator<String> withPrefix(String prefix) {
+    Node node = descend(prefix.getBytes(StandardCharsets.UTF_8), false);
+    return node == null ? Collections.emptyIterator() : new PrefixIterator(node);
+  }
+
+  /**
+   * Word Search II over any BMP characters. The board is only read: visited cells live in a
+   * long[] bitset, and found words are de-duplicated by id, so the trie stays reusable.
+   *
+   * @throws IllegalArgumentException if a cell holds a surrogate, which one char cannot
+   *                                  encode on its own
+   */
+  public List<String> findWords(char[][] board) {
+    List<String> res = new ArrayList<>();
+    int rows = board.length;
+    int cols = rows == 0 ? 0 : board[0].length;
+    if (rows == 0 || cols == 0) {
+      return res;
+    }
+    byte[][] cells = new byte[rows * cols][];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        char c = board[i][j];
+        if (Character.isSurrogate(c)) {
+          throw new IllegalArgumentException("surrogate at row " + i + ", column " + j);
+        }
+        cells[i * cols + j] = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+      }
+    }
+    BoardSearch search = new BoardSearch(cells, rows, cols, res);
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        search.visit(i, j, root, root.prefix.length);
+      }
+    }
+    return res;
+  }
+
+  /**
+   * Node whose subtree holds exactly the keys starting with key. With exact set the key
+   * must end at a node boundary, otherwise it may also end inside a node's prefix.
+   */
+  private Node descend(byte[] key, boolean exact) {
+    Node node = root;
+    int depth = 0;
+    while (true) {
+      int length = node.prefix.length;
+      int remaining = key.length - depth;
+      if (remaining < length) {
+        // the key stops inside this node's prefix
+        if (exact || !node.prefixMatches(key, depth, remaining)) {
+          return null;
+        }
+        return node;
+      }
+      if (!node.prefixMatches(key, depth)) {
+        return null;
+      }
+      depth += length;
+      if (depth == key.length) {
+        return node;
+      }
+      node = node.find(key[depth++] & 0xff);
+      if (node == null) {
+        return null;
+      }
+    }
+  }
+
+  // node's prefix starts at key[depth]; returns the node to store in the parent
+  private Node insert(Node node, byte[] key, int depth, String word) {
+    byte[] prefix = node.prefix;
+    int p = 0;
+    while (p < prefix.length && depth + p < key.length && prefix[p] == key[depth + p]) {
+      p++;
+    }
+    if (p < prefix.length) {
+      // the key leaves this node's prefix at p: split it there
+      Node split = new Node4(Arrays.copyOf(prefix, p));
+      int branch = prefix[p] & 0xff;
+      node.prefix = Arrays.copyOfRange(prefix, p + 1, prefix.length);
+      split = split.addChild(branch, node);
+      if (depth + p == key.length) {
+        setValue(split, word);
+      } else {
+        Node leaf = new Node4(Arrays.copyOfRange(key, depth + p + 1, key.length));
+        setValue(leaf, word);
+        split = split.addChild(key[depth + p] & 0xff, leaf);
+      }
+      return split;
+    }
+    depth += p;
+    if (depth == key.length) {
+      setValue(node, word);
+      return node;
+    }
+    int b = key[depth] & 0xff;
+    Node child = node.find(b);
+    if (child != null) {
+      Node updated = insert(child, key, depth + 1, word);
+      if (updated != child) {
+        node.replace(b, updated);
+      }
+      return node;
+    }
+    Node leaf = new Node4(Arrays.copyOfRange(key, depth + 1, key.length));
+    setValue(leaf, word);
+    return node.addChild(b, leaf);
+  }
+
+  private void setValue(Node node, String word) {
+    if (node.value == null) {
+      node.value = word;
+      node.id = size++;
+    }
+  }
+
+  abstract static class Node {
+    byte[] prefix;
+    String value;    // word ending here, or null
+    int id = -1;     // insertion order of value
+    int children;
+
+    Node(byte[] prefix) {
+      this.prefix = prefix;
+    }
+
+    abstract Node find(int b);
+
+    abstract void replace(int b, Node child);
+
+    /**
+     * Add a child for a new byte, returning this or a larger layout holding everything.
+     */
+    abstract Node addChild(int b, Node child);
+
+    /**
+     * Smallest key byte at or after from that has a child, or -1.
+     */
+    abstract int nextKey(int from);
+
+    boolean prefixMatches(byte[] key, int depth) {
+      return prefixMatches(key, depth, prefix.length);
+    }
+
+    boolean prefixMatches(byte[] key, int depth, int length) {
+      if (depth + length > key.length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if (prefix[i] != key[depth + i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    Node copyHeader(Node to) {
+      to.value = value;
+      to.id = id;
+      return to;
+    }
+  }
+
+  // Node4 and Node16: key bytes kept sorted, children at the same positions.
+  abstract static class SortedNode extends Node {
+    byte[] keys;
+    Node[] kids;
+    private final int capacity;
+
+    SortedNode(byte[] prefix, int capacity) {
+      super(prefix);
+      this.capacity = capacity;
+    }
+
+    private int indexOf(int b) {
+      for (int i = 0; i < children; i++) {
+        int k = keys[i] & 0xff;
+        if (k >= b) {
+          return k == b ? i : -1;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    Node find(int b) {
+      int i = indexOf(b);
+      return i < 0 ? null : kids[i];
+    }
+
+    @Override
+    void replace(int b, Node child) {
+      kids[indexOf(b)] = child;
+    }
+
+    @Override
+    Node addChild(int b, Node child) {
+      if (children == capacity) {
+        Node grown = capacity == 4 ? new Node16(prefix) : new Node48(prefix);
+        for (int i = 0; i < children; i++) {
+          grown = grown.addChild(keys[i] & 0xff, kids[i]);
+        }
+        return copyHeader(grown).addChild(b, child);
+      }
+      if (keys == null) {
+        // leaves never pay for child arrays
+        keys = new byte[capacity];
+        kids = new Node[capacity];
+      }
+      int i = children;
+      while (i > 0 && (keys[i - 1] & 0xff) > b) {
+        keys[i] = keys[i - 1];
+        kids[i] = kids[i - 1];
+        i--;
+      }
+      keys[i] = (byte) b;
+      kids[i] = child;
+      children++;
+      return this;
+    }
+
+    @Override
+    int nextKey(int from) {
+      for (int i = 0; i < children; i++) {
+        int k = keys[i] & 0xff;
+        if (k >= from) {
+          return k;
+        }
+      }
+      return -1;
+    }
+  }
+
+  static final class Node4 extends SortedNode {
+    Node4(byte[] prefix) {
+      super(prefix, 4);
+    }
+  }
+
+  static final class Node16 extends SortedNode {
+    Node16(byte[] prefix) {
+      super(prefix, 16);
+    }
+  }
+
+  static final class Node48 extends Node {
+    final byte[] index = new byte[256];   // slot + 1, 0 when absent
+    final Node[] kids = new Node[48];
+
+    Node48(byte[] prefix) {
+      super(prefix);
+    }
+
+    @Override
+    Node find(int b) {
+      int slot = index[b];
+      return slot == 0 ? null : kids[slot - 1];
+    }
+
+    @Override
+    void replace(int b, Node child) {
+      kids[index[b] - 1] = child;
+    }
+
+    @Override
+    Node addChild(int b, Node child) {
+      if (children == kids.length) {
+        Node256 grown = new Node256(prefix);
+        for (int k = 0; k < 256; k++) {
+          if (index[k] != 0) {
+            grown.addChild(k, kids[index[k] - 1]);
+          }
+        }
+        return copyHeader(grown).addChild(b, child);
+      }
+      kids[children] = child;
+      index[b] = (byte) ++children;
+      return this;
+    }
+
+    @Override
+    int nextKey(int from) {
+      for (int k = from; k < 256; k++) {
+        if (index[k] != 0) {
+          return k;
+        }
+      }
+      return -1;
+    }
+  }
+
+  static final class Node256 extends Node {
+    final Node[] kids = new Node[256];
+
+    Node256(byte[] prefix) {
+      super(prefix);
+    }
+
+    @Override
+    Node find(int b) {
+      return kids[b];
+    }
+
+    @Override
+    void replace(int b, Node child) {
+      kids[b] = child;
+    }
+
+    @Override
+    Node addChild(int b, Node child) {
+      kids[b] = child;
+      children++;
+      return this;
+    }
+
+    @Override
+    int nextKey(int from) {
+      for (int k = from; k < 256; k++) {
+        if (kids[k] != null) {
+          return k;
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * Pre-order DFS with an explicit stack of (node, next key byte to try).
+   */
+  static final class PrefixIterator implements Iterator<String> {
+    private Node[] nodes = new Node[16];
+    private int[] nextKeys = new int[16];
+    private int depth;
+    private String next;
+
+    PrefixIterator(Node start) {
+      nodes[0] = start;
+      depth = 1;
+      next = start.value;
+      if (next == null) {
+        advance();
+      }
+    }
+
+    private void advance() {
+      next = null;
+      while (depth > 0 && next == null) {
+        Node top = nodes[depth - 1];
+        int k = top.nextKey(nextKeys[depth - 1]);
+        if (k < 0) {
+          depth--;
+          continue;
+        }
+        nextKeys[depth - 1] = k + 1;
+        Node child = top.find(k);
+        if (depth == nodes.length) {
+          nodes = Arrays.copyOf(nodes, depth * 2);
+          nextKeys = Arrays.copyOf(nextKeys, depth * 2);
+        }
+        nodes[depth] = child;
+        nextKeys[depth++] = 0;
+        next = child.value;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public String next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      String result = next;
+      advance();
+      return result;
+    }
+  }
+
+  private final class BoardSearch {
+    private final byte[][] cells;
+    private final int rows, cols;
+    private final long[] visited;
+    private final BitSet found = new BitSet(size);
+    private final List<String> res;
+
+    BoardSearch(byte[][] cells, int rows, int cols, List<String> res) {
+      this.cells = cells;
+      this.rows = rows;
+      this.cols = cols;
+      this.visited = new long[(rows * cols + 63) >>> 6];
+      this.res = res;
+    }
+
+    // matched is how much of node's prefix the path so far has consumed
+    void visit(int i, int j, Node node, int matched) {
+      int cell = i * cols + j;
+      if ((visited[cell >>> 6] & (1L << cell)) != 0) return;
+      for (byte b : cells[cell]) {
+        if (matched < node.prefix.length) {
+          if (node.prefix[matched] != b) return;
+          matched++;
+        } else {
+          node = node.find(b & 0xff);
+          if (node == null) return;
+          matched = 0;
+        }
+      }
+      if (matched == node.prefix.length && node.value != null && !found.get(node.id)) {
+        found.set(node.id);
+        res.add(node.value);
+      }
+
+      visited[cell >>> 6] |= 1L << cell;
+      if (i > 0) visit(i - 1, j, node, matched);
+      if (j > 0) visit(i, j - 1, node, matched);
+      if (i < rows - 1) visit(i + 1, j, node, matched);
+      if (j < cols - 1) visit(i, j + 1, node, matched);
+      visited[cell >>> 6] &= ~(1L << cell);
+    }
+  }
+
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  public static void main(String[] args) {
+    RadixTrie demo = new RadixTrie();
+    // Strasse with a sharp s, Strand, straw, cafe and cafes with an acute e, Moskva in
+    // Cyrillic, Tokyo and Tokyo-to in kanji
+    String[] demoWords = {"Stra\u00dfe", "Strand", "straw", "caf\u00e9", "caf\u00e9s",
+        "\u041c\u043e\u0441\u043a\u0432\u0430", "\u6771\u4eac", "\u6771\u4eac\u90fd"};
+    for (String word : demoWords) {
+      demo.add(word);
+    }
+    List<String> str = new ArrayList<>();
+    demo.withPrefix("Str").forEachRemaining(str::add);
+    System.out.println(str.size() + " words start with Str; longest prefix of \"caf\u00e9s au lait\": "
+        + demo.longestPrefixOf("caf\u00e9s au lait").length() + " chars");
+    char[][] board = {{'\u6771', '\u4eac', 'x'}, {'\u00e9', '\u90fd', 'S'}, {'f', 'a', 'c'}};
+    System.out.println(demo.findWords(board).size() + " words on the board");
+
+    // 500k mixed-script words: ASCII lowercase, mixed case, Latin-1 accents, Cyrillic,
+    // Greek and CJK, each as {first code point, alphabet size}
+    int[][] alphabets = {{'a', 26}, {'A', 58}, {0xe0, 32}, {0x430, 32}, {0x3b1, 25}, {0x4e00, 200}};
+    Random random = new Random(24);
+    int n = 500_000;
+    String[] words = new String[n];
+    for (int w = 0; w < n; w++) {
+      int[] alphabet = alphabets[random.nextInt(alphabets.length)];
+      char[] chs = new char[3 + random.nextInt(10)];
+      for (int i = 0; i < chs.length; i++) {
+        // skew towards the start of the alphabet so prefixes are shared
+        chs[i] = (char) (alphabet[0] + (int) Math.sqrt(random.nextInt(alphabet[1] * alphabet[1])));
+      }
+      words[w] = new String(chs);
+    }
+
+    long before = usedHeap();
+    Set<String> hashed = new HashSet<>(Arrays.asList(words));
+    long hashBytes = usedHeap() - before;
+    before = usedHeap();
+    RadixTrie trie = new RadixTrie();
+    long start = System.nanoTime();
+    for (String word : words) {
+      trie.add(word);
+    }
+    long buildNanos = System.nanoTime() - start;
+    long trieBytes = usedHeap() - before;
+    System.out.printf("%d words: HashSet %.0f bytes/word, RadixTrie %.0f bytes/word "
+            + "(the word strings themselves are shared and not counted), built in %.0f ms%n", trie.size(),
+        (double) hashBytes / trie.size(), (double) trieBytes / trie.size(), buildNanos / 1e6);
+
+    String[] queries = new String[1_000_000];
+    for (int q = 0; q < queries.length; q++) {
+      String word = words[random.nextInt(n)];
+      queries[q] = (q & 1) == 0 ? word : word + "s";
+    }
+    for (int round = 0; round < 3; round++) {
+      int hitsHash = 0, hitsTrie = 0, prefixHits = 0;
+      start = System.nanoTime();
+      for (String query : queries) {
+        hitsHash += hashed.contains(query) ? 1 : 0;
+      }
+      long hashNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (String query : queries) {
+        hitsTrie += trie.contains(query) ? 1 : 0;
+      }
+      long trieNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (String query : queries) {
+        prefixHits += trie.longestPrefixOf(query) != null ? 1 : 0;
+      }
+      long prefixNanos = System.nanoTime() - start;
+      System.out.printf("HashSet.contains %.0f ns, contains %.0f ns, longestPrefixOf %.0f ns "
+              + "(hits %d/%d, %d)%n", (double) hashNanos / queries.length,
+          (double) trieNanos / queries.length, (double) prefixNanos / queries.length,
+          hitsHash, hitsTrie, prefixHits);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package graph.trie;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Node of the 26-letter trie that WordSearch2 and {@link ParallelWordSearch} search
+ * boards with. value holds the word ending at the node until a search takes it.
+ */
+public class Trie {
+  private static final AtomicReferenceFieldUpdater<Trie, String> VALUE =
+      AtomicReferenceFieldUpdater.newUpdater(Trie.class, String.class, "value");
+
+  // volatile for claim's CAS; the sequential search pays one volatile read per node
+  volatile String value;
+  Trie next[] = new Trie[26];
+  // words still stored in this subtree, kept up to date by WordSearch2.getValue
+  int remaining;
+
+  /**
+   * Take the word ending here, returning it to exactly one caller even across threads.
+   */
+  String claim() {
+    String v;
+    do {
+      v = value;
+      if (v == null) {
+        return null;
+      }
+    } while (!VALUE.compareAndSet(this, v, null));
+    return v;
+  }
+
+  /**
+   * Insert every word, sharing the nodes of common prefixes.
+   */
+  public static Trie of(String[] words) {
+    Trie root = new Trie();
+    for (String word : words) {
+      Trie p = root;
+      for (char ch : word.toCharArray()) {
+        if (p.next[ch - 'a'] == null) {
+          p.next[ch - 'a'] = new Trie();
+        }
+        p = p.next[ch - 'a'];
+      }
+      if (p.value == null) {
+        p.value = word;
+        Trie q = root;
+        q.remaining++;
+        for (int i = 0; i < word.length(); i++) {
+          q = q.next[word.charAt(i) - 'a'];
+          q.remaining++;
+        }
+      }
+    }
+    return root;
+  }
+}
+
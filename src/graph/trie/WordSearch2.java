@@ -1,8 +1,10 @@
 package graph.trie;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Random;
 
 //https://leetcode.com/problems/word-search-ii/
 class WordSearch2 {
@@ -17,64 +19,144 @@ class WordSearch2 {
 
     Trie trie =  createTree(words);
     List<String> result = new ArrayList<>();
+    findWords(board, trie, result);
+    System.out.println(result);
 
-    for (int i = 0; i < board.length ; i++) {
-      for (int j = 0; j < board[0].length; j++) {
-        getValue(board,i,j,trie,result);
+    // 100 x 100 boards, 50k words: half traced along the board so they are found, half random
+    Random random = new Random(22);
+    int n = 100;
+    for (int round = 0; round < 5; round++) {
+      char[][] big = new char[n][n];
+      for (char[] row : big) {
+        for (int j = 0; j < n; j++) {
+          row[j] = (char) ('a' + random.nextInt(26));
+        }
       }
+      String[] dictionary = new String[50_000];
+      for (int w = 0; w < dictionary.length; w++) {
+        char[] chs = new char[3 + random.nextInt(8)];
+        if (w % 2 == 0) {
+          // straight run in one of four directions, which never revisits a cell
+          int di = random.nextInt(3) - 1;
+          int dj = di == 0 ? (random.nextBoolean() ? 1 : -1) : 0;
+          int i = di < 0 ? n - 1 - random.nextInt(n - chs.length) : random.nextInt(n - chs.length);
+          int j = dj < 0 ? n - 1 - random.nextInt(n - chs.length) : random.nextInt(n - chs.length);
+          for (int k = 0; k < chs.length; k++, i += di, j += dj) {
+            chs[k] = big[i][j];
+          }
+        } else {
+          for (int k = 0; k < chs.length; k++) {
+            chs[k] = (char) ('a' + random.nextInt(26));
+          }
+        }
+        dictionary[w] = new String(chs);
+      }
+
+      List<String> before = new ArrayList<>();
+      Trie unpruned = createTree(dictionary);
+      disablePruning(unpruned);
+      System.gc();
+      long start = System.nanoTime();
+      findWords(big, unpruned, before);
+      long beforeNanos = System.nanoTime() - start;
+
+      List<String> after = new ArrayList<>();
+      Trie pruned = createTree(dictionary);
+      System.gc();
+      start = System.nanoTime();
+      findWords(big, pruned, after);
+      long afterNanos = System.nanoTime() - start;
+      System.out.printf("found %d/%d words: without pruning %.1f ms, pruned %.1f ms%n",
+          after.size(), before.size(), beforeNanos / 1e6, afterNanos / 1e6);
     }
-    System.out.println(result);
   }
 
 
-  private  static void getValue(char[][] board, int i, int j ,Trie p,  List<String> res){
+  /**
+   * Returns how many words this call found below p, after removing them from p's counts and
+   * detaching any child whose subtree has no words left.
+   */
+  private  static int getValue(char[][] board, int i, int j ,Trie p,  List<String> res){
       char c = board[i][j];
-      if (c == '#' || p.next[c - 'a'] == null) return;
+      if (c == '#' || p.next[c - 'a'] == null) return 0;
+      Trie parent = p;
       p = p.next[c - 'a'];
+      int found = 0;
       if (p.value != null) {   // found one
         res.add(p.value);
         p.value = null;     // de-duplicate
+        found++;
+        p.remaining--;
       }
 
       board[i][j] = '#';
-      if (i > 0) getValue(board, i - 1, j ,p, res);
-      if (j > 0) getValue(board, i, j - 1, p, res);
-      if (i < board.length - 1) getValue(board, i + 1, j, p, res);
-      if (j < board[0].length - 1) getValue(board, i, j + 1, p, res);
+      if (p.remaining > 0 && i > 0) found += getValue(board, i - 1, j ,p, res);
+      if (p.remaining > 0 && j > 0) found += getValue(board, i, j - 1, p, res);
+      if (p.remaining > 0 && i < board.length - 1) found += getValue(board, i + 1, j, p, res);
+      if (p.remaining > 0 && j < board[0].length - 1) found += getValue(board, i, j + 1, p, res);
       board[i][j] = c;
 
-
+      if (p.remaining == 0) {
+        parent.next[c - 'a'] = null;   // nothing left to find down there
+      }
+      parent.remaining -= found;
+      return found;
   }
 
-  private static Trie createTree(String word[]){
-
-    Trie base = new Trie();
-    Trie start = base;
-
-    for (int i = 0; i< word.length; i++) {
+  // counts no search can use up, so getValue never prunes: the search as it was before them
+  private static void disablePruning(Trie p) {
+    p.remaining = Integer.MAX_VALUE;
+    for (Trie child : p.next) {
+      if (child != null) {
+        disablePruning(child);
+      }
+    }
+  }
 
-      int count =0;
-      for (char ch : word[i].toCharArray()) {
-        base.next[ch -'a']  = new Trie();
-        base =  base.next[ch-'a'];
-        if(count == word[i].length()-1){
-          base.value=word[i];
-        }
-        count++;
+  static void findWords(char[][] board, Trie trie, List<String> res) {
+    for (int i = 0; i < board.length && trie.remaining > 0; i++) {
+      for (int j = 0; j < board[0].length && trie.remaining > 0; j++) {
+        getValue(board, i, j, trie, res);
       }
-      base = start;
+    }
+  }
 
+  /**
+   * Same search over a {@link DoubleArrayTrie}, which is never modified, so found ids are
+   * de-duplicated in a BitSet instead of by clearing the node.
+   */
+  static void findWords(char[][] board, DoubleArrayTrie trie, List<String> res) {
+    BitSet found = new BitSet(trie.size());
+    for (int i = 0; i < board.length; i++) {
+      for (int j = 0; j < board[0].length; j++) {
+        getValue(board, i, j, trie, trie.root(), found, res);
+      }
     }
-    return start;
   }
 
+  private static void getValue(char[][] board, int i, int j, DoubleArrayTrie trie, int state,
+      BitSet found, List<String> res) {
+    char c = board[i][j];
+    state = trie.child(state, c);   // '#' has no child
+    if (state == DoubleArrayTrie.NONE) return;
+    int id = trie.wordId(state);
+    if (id != DoubleArrayTrie.NONE && !found.get(id)) {
+      found.set(id);
+      res.add(trie.word(id));
+    }
 
-}
+    board[i][j] = '#';
+    if (i > 0) getValue(board, i - 1, j, trie, state, found, res);
+    if (j > 0) getValue(board, i, j - 1, trie, state, found, res);
+    if (i < board.length - 1) getValue(board, i + 1, j, trie, state, found, res);
+    if (j < board[0].length - 1) getValue(board, i, j + 1, trie, state, found, res);
+    board[i][j] = c;
+  }
 
+  static Trie createTree(String word[]){
+    // children are reused, so words with a common prefix share its nodes
+    return Trie.of(word);
+  }
 
-class Trie {
-  String value;
-  Trie next[] = new Trie[26];
 
 }
-
@@ -0,0 +1,222 @@
+package graph.trie;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-only board for many {@link WordSearch#exist} queries, safe to share between threads.
+ * exist marks its path by writing '-' into the caller's board, so every concurrent request
+ * needed its own copy. Here the grid is packed once into a byte[] of character codes, one
+ * byte per cell, and the cells holding each code are listed in CSR form.
+ *
+ * A query first compares the word's letter counts with the board's, which rejects most
+ * impossible words in O(length). It then starts the DFS from whichever end letter is rarer
+ * on the board, trying only the cells that hold it. The path is tracked in a per-thread
+ * long[] bitset that backtracking leaves clean, so a query allocates nothing after its
+ * thread's first.
+ */
+public class WordSearchIndex {
+
+  private final int rows;
+  private final int cols;
+  private final byte[] grid;          // code of each cell, row-major
+  private final byte[] codeOf;        // char -> code, 0 for chars not on the board
+  // CSR: cells holding code c are cells[start[c] .. start[c + 1])
+  private final int[] start;
+  private final int[] cells;
+  private final ThreadLocal<Scratch> scratch;
+
+  public WordSearchIndex(char[][] board) {
+    rows = board.length;
+    cols = rows == 0 ? 0 : board[0].length;
+    grid = new byte[rows * cols];
+    codeOf = new byte[Character.MAX_VALUE + 1];
+    int codes = 1;
+    for (int i = 0; i < rows; i++) {
+      if (board[i].length != cols) {
+        throw new IllegalArgumentException("row " + i + " has " + board[i].length
+            + " columns, expected " + cols);
+      }
+      for (int j = 0; j < cols; j++) {
+        char c = board[i][j];
+        if (codeOf[c] == 0) {
+          if (codes == 256) {
+            throw new IllegalArgumentException("more than 255 distinct characters");
+          }
+          codeOf[c] = (byte) codes++;
+        }
+        grid[i * cols + j] = codeOf[c];
+      }
+    }
+
+    start = new int[codes + 1];
+    for (byte code : grid) {
+      start[(code & 0xff) + 1]++;
+    }
+    for (int c = 0; c < codes; c++) {
+      start[c + 1] += start[c];
+    }
+    cells = new int[grid.length];
+    int[] fill = new int[codes];
+    for (int cell = 0; cell < grid.length; cell++) {
+      int code = grid[cell] & 0xff;
+      cells[start[code] + fill[code]++] = cell;
+    }
+    int cellCount = grid.length;
+    scratch = ThreadLocal.withInitial(() -> new Scratch(cellCount));
+  }
+
+  public boolean exist(String word) {
+    int length = word.length();
+    if (length == 0 || length > grid.length) {
+      return length == 0;
+    }
+    Scratch s = scratch.get();
+    int[] path = s.path(length);
+    int[] need = s.need;
+    boolean possible = true;
+    for (int k = 0; k < length; k++) {
+      int code = codeOf[word.charAt(k)] & 0xff;
+      path[k] = code;
+      if (code == 0 || ++need[code] > start[code + 1] - start[code]) {
+        possible = false;
+      }
+    }
+    for (int k = 0; k < length; k++) {
+      need[path[k]] = 0;
+    }
+    if (!possible) {
+      return false;
+    }
+
+    // a path read backwards is still a path, so begin at the rarer end
+    if (count(path[0]) > count(path[length - 1])) {
+      for (int lo = 0, hi = length - 1; lo < hi; lo++, hi--) {
+        int t = path[lo];
+        path[lo] = path[hi];
+        path[hi] = t;
+      }
+    }
+    int first = path[0];
+    for (int k = start[first]; k < start[first + 1]; k++) {
+      int cell = cells[k];
+      if (search(cell / cols, cell % cols, path, 0, length, s.visited)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int count(int code) {
+    return start[code + 1] - start[code];
+  }
+
+  // grid[i][j] already matches path[index]; true if path[index + 1 ..] follows from here
+  private boolean search(int i, int j, int[] path, int index, int length, long[] visited) {
+    if (index == length - 1) {
+      return true;
+    }
+    int cell = i * cols + j;
+    visited[cell >>> 6] |= 1L << cell;
+    int next = path[index + 1];
+    boolean found = i > 0 && step(i - 1, j, next, visited) && search(i - 1, j, path, index + 1, length, visited)
+        || j > 0 && step(i, j - 1, next, visited) && search(i, j - 1, path, index + 1, length, visited)
+        || i < rows - 1 && step(i + 1, j, next, visited) && search(i + 1, j, path, index + 1, length, visited)
+        || j < cols - 1 && step(i, j + 1, next, visited) && search(i, j + 1, path, index + 1, length, visited);
+    visited[cell >>> 6] &= ~(1L << cell);
+    return found;
+  }
+
+  private boolean step(int i, int j, int code, long[] visited) {
+    int cell = i * cols + j;
+    return (grid[cell] & 0xff) == code && (visited[cell >>> 6] & (1L << cell)) == 0;
+  }
+
+  static final class Scratch {
+    final long[] visited;
+    final int[] need = new int[256];
+    private int[] path = new int[16];
+
+    Scratch(int cells) {
+      visited = new long[(cells + 63) >>> 6];
+    }
+
+    int[] path(int length) {
+      if (path.length < length) {
+        path = new int[Math.max(length, path.length * 2)];
+      }
+      return path;
+    }
+  }
+
+
+  public static void main(String[] args) throws Exception {
+    char[][] demo = {{'A','B','C','E'},{'S','F','C','S'},{'A','D','E','E'}};
+    WordSearchIndex demoIndex = new WordSearchIndex(demo);
+    System.out.println(demoIndex.exist("ABCCED") + " " + demoIndex.exist("SEE") + " " + demoIndex.exist("ABCB"));
+
+    // 300 x 300 board, half the queries traced along it and half random
+    Random random = new Random(25);
+    int n = 300;
+    char[][] board = new char[n][n];
+    for (char[] row : board) {
+      for (int j = 0; j < n; j++) {
+        row[j] = (char) ('A' + random.nextInt(26));
+      }
+    }
+    String[] queries = new String[20_000];
+    for (int q = 0; q < queries.length; q++) {
+      char[] chs = new char[4 + random.nextInt(9)];
+      int i = random.nextInt(n), j = random.nextInt(n - chs.length);
+      for (int k = 0; k < chs.length; k++) {
+        chs[k] = q % 2 == 0 ? board[i][j + k] : (char) ('A' + random.nextInt(26));
+      }
+      queries[q] = new String(chs);
+    }
+    WordSearchIndex index = new WordSearchIndex(board);
+
+    for (int round = 0; round < 3; round++) {
+      // what each request does today: copy the board, then exist on the copy
+      long start = System.nanoTime();
+      int copyHits = 0;
+      for (int q = 0; q < 2_000; q++) {
+        char[][] copy = new char[n][];
+        for (int i = 0; i < n; i++) {
+          copy[i] = board[i].clone();
+        }
+        copyHits += new WordSearch().exist(copy, queries[q]) ? 1 : 0;
+      }
+      double copyUs = (System.nanoTime() - start) / 1e3 / 2_000;
+      System.out.printf("copy + exist %.1f us/query (hits %d/2000)", copyUs, copyHits);
+
+      for (int threads : new int[]{1, 2, 4, 8}) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicLong hits = new AtomicLong();
+        int perThread = queries.length / threads;
+        start = System.nanoTime();
+        Future<?>[] futures = new Future<?>[threads];
+        for (int t = 0; t < threads; t++) {
+          int from = t * perThread;
+          futures[t] = pool.submit(() -> {
+            int local = 0;
+            for (int q = from; q < from + perThread; q++) {
+              local += index.exist(queries[q]) ? 1 : 0;
+            }
+            hits.addAndGet(local);
+          });
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+        System.out.printf(", %d threads %.0fk queries/s (hits %d)", threads,
+            threads * perThread / seconds / 1e3, hits.get());
+      }
+      System.out.println();
+    }
+  }
+}